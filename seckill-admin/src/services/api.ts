@@ -1,5 +1,5 @@
 import axios from 'axios';
-import type { User, Product, SeckillProduct, Order, DashboardStats, ApiResponse, PageResponse, SearchParams } from '../types';
+import type { User, Product, SeckillProduct, Order, DashboardStats, ApiResponse, PageResponse, CursorPage, SearchParams } from '../types';
 
 // 创建axios实例
 const api = axios.create({
@@ -79,8 +79,9 @@ export const seckillApi = {
   preloadSeckill: (id: number): Promise<ApiResponse> => {
     return api.post(`/seckill/preload/${id}`);
   },
-  doSeckill: (userId: number, seckillId: number): Promise<ApiResponse> => {
-    return api.post('/seckill/do', { userId, seckillId });
+  // 以当前登录的管理员身份下单：后端按会话令牌确定下单用户，无法替其他用户下单
+  doSeckillAsCurrentUser: (seckillId: number): Promise<ApiResponse> => {
+    return api.post('/seckill/do', { seckillId });
   },
   checkUserSeckill: (userId: number, seckillId: number): Promise<ApiResponse> => {
     return api.get(`/seckill/check/${userId}/${seckillId}`);
@@ -89,8 +90,8 @@ export const seckillApi = {
 
 // 订单管理API (基于后端实际接口)
 export const orderApi = {
-  getUserOrders: (userId: number): Promise<ApiResponse<Order[]>> => {
-    return api.get(`/seckill/orders/${userId}`);
+  getUserOrders: (userId: number, after?: string, limit = 20): Promise<ApiResponse<CursorPage<Order>>> => {
+    return api.get(`/seckill/orders/${userId}`, { params: { after, limit } });
   },
   getOrderDetail: (orderNo: string): Promise<ApiResponse<Order>> => {
     return api.get(`/seckill/order/${orderNo}`);
@@ -69,6 +69,13 @@ export interface PageResponse<T> {
   pages: number;
 }
 
+// 游标分页响应类型
+export interface CursorPage<T> {
+  orders: T[];
+  nextCursor: string | null;
+  hasMore: boolean;
+}
+
 // 搜索参数类型
 export interface SearchParams {
   page?: number;
@@ -0,0 +1,416 @@
+package com.example.cache;
+
+import com.example.entity.Product;
+import com.example.entity.SeckillOrder;
+import com.example.entity.SeckillProduct;
+import com.example.entity.User;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 紧凑二进制Redis值序列化器
+ * 对 Product、SeckillProduct、SeckillOrder、User 及其列表按固定字段顺序编码，
+ * 不写入类名和字段名，整数使用变长编码；超过阈值的值使用LZ4压缩。
+ * 整数直接写成十进制字符串，INCR/DECR和Lua脚本可以直接对其运算；
+ * 其他类型以及旧的JSON格式数据交给JSON序列化器处理，切换序列化方式时无需清空缓存。
+ *
+ * 格式：1字节格式标记 + 类型标记 + 结构版本 + 字段。
+ * 格式标记取UTF-8中不可能出现在首字节的值，因此可以与JSON数据区分开
+ */
+public class BinaryRedisSerializer implements RedisSerializer<Object> {
+
+    private static final byte FORMAT_RAW = (byte) 0xB1;
+    private static final byte FORMAT_LZ4 = (byte) 0xB2;
+
+    private static final int TYPE_NULL = 0;
+    private static final int TYPE_PRODUCT = 1;
+    private static final int TYPE_SECKILL_PRODUCT = 2;
+    private static final int TYPE_SECKILL_ORDER = 3;
+    private static final int TYPE_USER = 4;
+    private static final int TYPE_LIST = 5;
+    private static final int TYPE_STRING = 6;
+
+    /**
+     * 结构版本，实体增加字段时递增，新字段追加在末尾，读取时按版本决定读取哪些字段
+     */
+    private static final int SCHEMA_VERSION = 1;
+
+    /**
+     * 订单结构版本，2：增加seckillId
+     */
+    private static final int ORDER_SCHEMA_VERSION = 2;
+
+    private static final LZ4Factory LZ4 = LZ4Factory.fastestInstance();
+
+    private final RedisSerializer<Object> fallback;
+
+    private final int compressThreshold;
+
+    private final LZ4Compressor compressor = LZ4.fastCompressor();
+
+    private final LZ4FastDecompressor decompressor = LZ4.fastDecompressor();
+
+    /**
+     * @param fallback          不支持的类型及旧数据使用的序列化器
+     * @param compressThreshold 编码后超过该字节数时压缩
+     */
+    public BinaryRedisSerializer(RedisSerializer<Object> fallback, int compressThreshold) {
+        this.fallback = fallback;
+        this.compressThreshold = compressThreshold;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null) {
+            return new byte[0];
+        }
+        if (value instanceof Integer || value instanceof Long) {
+            return value.toString().getBytes(StandardCharsets.US_ASCII);
+        }
+        if (!isSupported(value)) {
+            return fallback.serialize(value);
+        }
+
+        Writer writer = new Writer();
+        writeValue(writer, value);
+        byte[] body = writer.toByteArray();
+        if (body.length <= compressThreshold) {
+            byte[] bytes = new byte[body.length + 1];
+            bytes[0] = FORMAT_RAW;
+            System.arraycopy(body, 0, bytes, 1, body.length);
+            return bytes;
+        }
+
+        Writer header = new Writer();
+        header.out.write(FORMAT_LZ4);
+        header.writeVarInt(body.length);
+        byte[] compressed = compressor.compress(body);
+        byte[] head = header.toByteArray();
+        byte[] bytes = Arrays.copyOf(head, head.length + compressed.length);
+        System.arraycopy(compressed, 0, bytes, head.length, compressed.length);
+        return bytes;
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        try {
+            if (bytes[0] == FORMAT_RAW) {
+                return readValue(new Reader(bytes, 1));
+            }
+            if (bytes[0] == FORMAT_LZ4) {
+                Reader header = new Reader(bytes, 1);
+                int length = header.readVarInt();
+                byte[] body = decompressor.decompress(bytes, header.pos, length);
+                return readValue(new Reader(body, 0));
+            }
+        } catch (RuntimeException e) {
+            throw new SerializationException("无法解析二进制缓存数据", e);
+        }
+        // 整数、JSON格式的旧数据
+        return fallback.deserialize(bytes);
+    }
+
+    private static boolean isSupported(Object value) {
+        if (value instanceof List<?> list) {
+            for (Object element : list) {
+                if (element != null && (element instanceof List || !isSupported(element))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return value instanceof Product || value instanceof SeckillProduct
+                || value instanceof SeckillOrder || value instanceof User || value instanceof String;
+    }
+
+    private static void writeValue(Writer w, Object value) {
+        if (value == null) {
+            w.writeVarInt(TYPE_NULL);
+        } else if (value instanceof Product product) {
+            w.writeVarInt(TYPE_PRODUCT);
+            w.writeVarInt(SCHEMA_VERSION);
+            w.writeLong(product.getId());
+            w.writeString(product.getProductName());
+            w.writeString(product.getProductDesc());
+            w.writeDecimal(product.getPrice());
+            w.writeInt(product.getStockCount());
+            w.writeInt(product.getStatus());
+            w.writeTime(product.getCreateTime());
+        } else if (value instanceof SeckillProduct seckillProduct) {
+            w.writeVarInt(TYPE_SECKILL_PRODUCT);
+            w.writeVarInt(SCHEMA_VERSION);
+            w.writeLong(seckillProduct.getId());
+            w.writeLong(seckillProduct.getProductId());
+            w.writeDecimal(seckillProduct.getSeckillPrice());
+            w.writeInt(seckillProduct.getStockCount());
+            w.writeTime(seckillProduct.getStartTime());
+            w.writeTime(seckillProduct.getEndTime());
+            w.writeInt(seckillProduct.getStatus());
+            w.writeInt(seckillProduct.getStockShards());
+            w.writeTime(seckillProduct.getCreateTime());
+        } else if (value instanceof SeckillOrder order) {
+            w.writeVarInt(TYPE_SECKILL_ORDER);
+            w.writeVarInt(ORDER_SCHEMA_VERSION);
+            w.writeLong(order.getId());
+            w.writeString(order.getOrderNo());
+            w.writeLong(order.getUserId());
+            w.writeLong(order.getProductId());
+            w.writeDecimal(order.getSeckillPrice());
+            w.writeInt(order.getStatus());
+            w.writeTime(order.getCreateTime());
+            w.writeLong(order.getSeckillId());
+        } else if (value instanceof User user) {
+            w.writeVarInt(TYPE_USER);
+            w.writeVarInt(SCHEMA_VERSION);
+            w.writeLong(user.getId());
+            w.writeString(user.getUsername());
+            w.writeString(user.getPassword());
+            w.writeTime(user.getCreateTime());
+        } else if (value instanceof List<?> list) {
+            w.writeVarInt(TYPE_LIST);
+            w.writeVarInt(list.size());
+            for (Object element : list) {
+                writeValue(w, element);
+            }
+        } else {
+            w.writeVarInt(TYPE_STRING);
+            w.writeString((String) value);
+        }
+    }
+
+    private static Object readValue(Reader r) {
+        int type = r.readVarInt();
+        switch (type) {
+            case TYPE_NULL:
+                return null;
+            case TYPE_PRODUCT: {
+                checkVersion(r.readVarInt());
+                Product product = new Product();
+                product.setId(r.readLong());
+                product.setProductName(r.readString());
+                product.setProductDesc(r.readString());
+                product.setPrice(r.readDecimal());
+                product.setStockCount(r.readInt());
+                product.setStatus(r.readInt());
+                product.setCreateTime(r.readTime());
+                return product;
+            }
+            case TYPE_SECKILL_PRODUCT: {
+                checkVersion(r.readVarInt());
+                SeckillProduct seckillProduct = new SeckillProduct();
+                seckillProduct.setId(r.readLong());
+                seckillProduct.setProductId(r.readLong());
+                seckillProduct.setSeckillPrice(r.readDecimal());
+                seckillProduct.setStockCount(r.readInt());
+                seckillProduct.setStartTime(r.readTime());
+                seckillProduct.setEndTime(r.readTime());
+                seckillProduct.setStatus(r.readInt());
+                seckillProduct.setStockShards(r.readInt());
+                seckillProduct.setCreateTime(r.readTime());
+                return seckillProduct;
+            }
+            case TYPE_SECKILL_ORDER: {
+                int version = r.readVarInt();
+                if (version < 1 || version > ORDER_SCHEMA_VERSION) {
+                    throw new IllegalStateException("不支持的结构版本: " + version);
+                }
+                SeckillOrder order = new SeckillOrder();
+                order.setId(r.readLong());
+                order.setOrderNo(r.readString());
+                order.setUserId(r.readLong());
+                order.setProductId(r.readLong());
+                order.setSeckillPrice(r.readDecimal());
+                order.setStatus(r.readInt());
+                order.setCreateTime(r.readTime());
+                if (version >= 2) {
+                    order.setSeckillId(r.readLong());
+                }
+                return order;
+            }
+            case TYPE_USER: {
+                checkVersion(r.readVarInt());
+                User user = new User();
+                user.setId(r.readLong());
+                user.setUsername(r.readString());
+                user.setPassword(r.readString());
+                user.setCreateTime(r.readTime());
+                return user;
+            }
+            case TYPE_LIST: {
+                int size = r.readVarInt();
+                List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue(r));
+                }
+                return list;
+            }
+            case TYPE_STRING:
+                return r.readString();
+            default:
+                throw new IllegalStateException("未知的类型标记: " + type);
+        }
+    }
+
+    private static void checkVersion(int version) {
+        if (version != SCHEMA_VERSION) {
+            throw new IllegalStateException("不支持的结构版本: " + version);
+        }
+    }
+
+    /**
+     * 字段编码：可空字段先写1字节存在标记，整数使用ZigZag变长编码
+     */
+    private static final class Writer {
+
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream(128);
+
+        void writeVarInt(int value) {
+            writeVarLong(value & 0xFFFFFFFFL);
+        }
+
+        void writeVarLong(long value) {
+            while ((value & ~0x7FL) != 0) {
+                out.write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            out.write((int) value);
+        }
+
+        void writeLong(Long value) {
+            if (value == null) {
+                out.write(0);
+                return;
+            }
+            out.write(1);
+            writeVarLong((value << 1) ^ (value >> 63));
+        }
+
+        void writeInt(Integer value) {
+            writeLong(value == null ? null : value.longValue());
+        }
+
+        void writeString(String value) {
+            if (value == null) {
+                writeVarInt(0);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(bytes.length + 1);
+            out.write(bytes, 0, bytes.length);
+        }
+
+        void writeDecimal(BigDecimal value) {
+            if (value == null) {
+                out.write(0);
+                return;
+            }
+            out.write(1);
+            writeVarInt(value.scale());
+            byte[] unscaled = value.unscaledValue().toByteArray();
+            writeVarInt(unscaled.length);
+            out.write(unscaled, 0, unscaled.length);
+        }
+
+        void writeTime(LocalDateTime value) {
+            if (value == null) {
+                out.write(0);
+                return;
+            }
+            out.write(1);
+            long seconds = value.toEpochSecond(ZoneOffset.UTC);
+            writeVarLong((seconds << 1) ^ (seconds >> 63));
+            writeVarInt(value.getNano());
+        }
+
+        byte[] toByteArray() {
+            return out.toByteArray();
+        }
+    }
+
+    private static final class Reader {
+
+        private final byte[] buf;
+
+        private int pos;
+
+        Reader(byte[] buf, int pos) {
+            this.buf = buf;
+            this.pos = pos;
+        }
+
+        int readVarInt() {
+            return (int) readVarLong();
+        }
+
+        long readVarLong() {
+            long result = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = buf[pos++];
+                result |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return result;
+                }
+            }
+            throw new IllegalStateException("变长整数格式错误");
+        }
+
+        Long readLong() {
+            if (buf[pos++] == 0) {
+                return null;
+            }
+            long raw = readVarLong();
+            return (raw >>> 1) ^ -(raw & 1);
+        }
+
+        Integer readInt() {
+            Long value = readLong();
+            return value == null ? null : value.intValue();
+        }
+
+        String readString() {
+            int length = readVarInt();
+            if (length == 0) {
+                return null;
+            }
+            String value = new String(buf, pos, length - 1, StandardCharsets.UTF_8);
+            pos += length - 1;
+            return value;
+        }
+
+        BigDecimal readDecimal() {
+            if (buf[pos++] == 0) {
+                return null;
+            }
+            int scale = readVarInt();
+            int length = readVarInt();
+            BigInteger unscaled = new BigInteger(buf, pos, length);
+            pos += length;
+            return new BigDecimal(unscaled, scale);
+        }
+
+        LocalDateTime readTime() {
+            if (buf[pos++] == 0) {
+                return null;
+            }
+            long raw = readVarLong();
+            long seconds = (raw >>> 1) ^ -(raw & 1);
+            return LocalDateTime.ofEpochSecond(seconds, readVarInt(), ZoneOffset.UTC);
+        }
+    }
+}
\ No newline at end of file
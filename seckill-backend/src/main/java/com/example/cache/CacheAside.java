@@ -0,0 +1,318 @@
+package com.example.cache;
+
+import com.example.metrics.SeckillMetrics;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 旁路缓存加载组件
+ * 1. 同一个key在本实例内同时只有一个线程回源查询数据库，其他线程等待并共享结果；
+ * 2. 可选地用Redis分布式锁让多个实例之间也只有一个回源（seckill.cache.distributed-lock）；
+ * 3. 按XFetch算法在key过期前概率性地提前刷新：剩余时间越短、加载越慢，提前刷新的概率越高，
+ *    刷新在后台执行，调用方仍然拿到当前值，避免热点key过期瞬间的回源洪峰
+ */
+@Component
+public class CacheAside {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheAside.class);
+
+    private static final String LOCK_PREFIX = "lock:cache:";
+
+    /**
+     * 空值标记，只写入Redis，不写入本地缓存
+     */
+    private static final String NULL_MARKER = "__NULL__";
+
+    /**
+     * 提前刷新未能提交到线程池时的结果，等待该刷新的线程自行加载
+     */
+    private static final Object REFRESH_SKIPPED = new Object();
+
+    private static final DefaultRedisScript<Long> UNLOCK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private TwoLevelCache twoLevelCache;
+
+    @Autowired
+    private SeckillMetrics metrics;
+
+    @Autowired
+    @Qualifier("cacheRefreshExecutor")
+    private TaskExecutor refreshExecutor;
+
+    @Value("${seckill.cache.distributed-lock.enabled:false}")
+    private boolean distributedLock;
+
+    /**
+     * 分布式锁的持有时间，应大于一次回源查询的耗时
+     */
+    @Value("${seckill.cache.distributed-lock.lease-millis:3000}")
+    private long lockLeaseMillis;
+
+    /**
+     * 未拿到分布式锁时轮询缓存的间隔
+     */
+    @Value("${seckill.cache.distributed-lock.poll-millis:50}")
+    private long lockPollMillis;
+
+    /**
+     * 空值标记的过期时间
+     */
+    @Value("${seckill.cache.null-ttl:60s}")
+    private Duration nullTtl;
+
+    @Value("${seckill.cache.early-refresh.enabled:true}")
+    private boolean earlyRefresh;
+
+    /**
+     * XFetch的beta参数，大于1时更倾向于提前刷新
+     */
+    @Value("${seckill.cache.early-refresh.beta:1.0}")
+    private double beta;
+
+    /**
+     * 正在加载的key
+     */
+    private final ConcurrentMap<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * 每个key最近一次回源的耗时（毫秒），XFetch据此决定提前多久刷新
+     */
+    private final Cache<String, Long> loadMillis = Caffeine.newBuilder().maximumSize(100_000).build();
+
+    /**
+     * 读取Redis缓存，未命中时回源加载并写入Redis
+     * loader返回null时写入短时间的空值标记，避免不存在的数据反复穿透到数据库
+     */
+    public <T> T get(String key, long timeout, TimeUnit unit, Supplier<T> loader) {
+        return get(key, timeout, unit, loader, false);
+    }
+
+    /**
+     * 读取二级缓存（本地 + Redis），未命中时回源加载并写入两级缓存
+     * 只用于通过 {@link TwoLevelCache#evict} 失效的key
+     */
+    public <T> T getTwoLevel(String key, long timeout, TimeUnit unit, Supplier<T> loader) {
+        return get(key, timeout, unit, loader, true);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T get(String key, long timeout, TimeUnit unit, Supplier<T> loader, boolean local) {
+        if (local) {
+            T value = twoLevelCache.getLocal(key);
+            metrics.cacheAccess(key, SeckillMetrics.LEVEL_LOCAL, value != null);
+            if (value != null) {
+                return value;
+            }
+        }
+
+        // 值和剩余过期时间在一次往返中取回
+        List<Object> results = redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object execute(RedisOperations operations) throws DataAccessException {
+                operations.opsForValue().get(key);
+                operations.getExpire(key, TimeUnit.MILLISECONDS);
+                return null;
+            }
+        });
+        Object cached = results.get(0);
+        metrics.cacheAccess(key, SeckillMetrics.LEVEL_REDIS, cached != null);
+        if (NULL_MARKER.equals(cached)) {
+            return null;
+        }
+        T value = (T) cached;
+        if (value != null) {
+            if (local) {
+                twoLevelCache.putLocal(key, value);
+            }
+            Long ttlMillis = (Long) results.get(1);
+            if (shouldRefreshEarly(key, ttlMillis)) {
+                refreshAsync(key, timeout, unit, loader, local);
+            }
+            return value;
+        }
+
+        return load(key, timeout, unit, loader, local);
+    }
+
+    /**
+     * XFetch：当 -加载耗时 × beta × ln(随机数) 超过剩余过期时间时提前刷新
+     */
+    private boolean shouldRefreshEarly(String key, Long ttlMillis) {
+        if (!earlyRefresh || ttlMillis == null || ttlMillis <= 0) {
+            return false;
+        }
+        Long delta = loadMillis.getIfPresent(key);
+        if (delta == null) {
+            return false;
+        }
+        double random = ThreadLocalRandom.current().nextDouble();
+        return -delta * beta * Math.log(random) >= ttlMillis;
+    }
+
+    private <T> void refreshAsync(String key, long timeout, TimeUnit unit, Supplier<T> loader, boolean local) {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        if (inFlight.putIfAbsent(key, future) != null) {
+            return; // 已有线程在加载
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    future.complete(loadAndPut(key, timeout, unit, loader, local));
+                } catch (Throwable e) {
+                    logger.warn("提前刷新缓存失败: {}", key, e);
+                    future.completeExceptionally(e);
+                } finally {
+                    inFlight.remove(key, future);
+                }
+            });
+        } catch (RuntimeException e) {
+            // 刷新线程池已满，本次不刷新；先移除加载标记，再唤醒可能在等待的线程
+            inFlight.remove(key, future);
+            future.complete(REFRESH_SKIPPED);
+        }
+    }
+
+    /**
+     * 缓存未命中时加载，同一key只有一个线程执行loader
+     */
+    private <T> T load(String key, long timeout, TimeUnit unit, Supplier<T> loader, boolean local) {
+        return singleFlight(key, () -> distributedLock
+                ? loadWithLock(key, timeout, unit, loader, local)
+                : loadAndPut(key, timeout, unit, loader, local));
+    }
+
+    /**
+     * 同一key在本实例内同时只有一个线程执行action，其他线程等待并共享结果（包括异常），不读写Redis
+     * 供自行管理缓存的调用方合并并发的重建，key不能与数据缓存key重复
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T singleFlight(String key, Supplier<T> action) {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            Object result;
+            try {
+                result = existing.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException re ? re : e;
+            }
+            // 等待的是未能执行的提前刷新，重新执行
+            return result == REFRESH_SKIPPED ? singleFlight(key, action) : (T) result;
+        }
+
+        try {
+            T value = action.get();
+            future.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    /**
+     * 跨实例加载：拿到锁的实例回源，其他实例轮询缓存直到值出现或锁过期
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T loadWithLock(String key, long timeout, TimeUnit unit, Supplier<T> loader, boolean local) {
+        String lockKey = LOCK_PREFIX + key;
+        String token = UUID.randomUUID().toString();
+        long deadline = System.currentTimeMillis() + lockLeaseMillis;
+        while (true) {
+            if (Boolean.TRUE.equals(stringRedisTemplate.opsForValue()
+                    .setIfAbsent(lockKey, token, lockLeaseMillis, TimeUnit.MILLISECONDS))) {
+                try {
+                    // 等待期间其他实例可能已经写入
+                    Object cached = redisTemplate.opsForValue().get(key);
+                    if (cached != null) {
+                        return fromCache(key, cached, local);
+                    }
+                    return loadAndPut(key, timeout, unit, loader, local);
+                } finally {
+                    stringRedisTemplate.execute(UNLOCK_SCRIPT, Collections.singletonList(lockKey), token);
+                }
+            }
+
+            sleep(lockPollMillis);
+            Object cached = redisTemplate.opsForValue().get(key);
+            if (cached != null) {
+                return fromCache(key, cached, local);
+            }
+            if (System.currentTimeMillis() > deadline) {
+                // 持锁实例迟迟没有写入，直接回源
+                return loadAndPut(key, timeout, unit, loader, local);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T fromCache(String key, Object cached, boolean local) {
+        if (NULL_MARKER.equals(cached)) {
+            return null;
+        }
+        if (local) {
+            twoLevelCache.putLocal(key, cached);
+        }
+        return (T) cached;
+    }
+
+    private <T> T loadAndPut(String key, long timeout, TimeUnit unit, Supplier<T> loader, boolean local) {
+        long start = System.nanoTime();
+        T value = loader.get();
+        loadMillis.put(key, Math.max(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), 1));
+        if (value == null) {
+            redisTemplate.opsForValue().set(key, NULL_MARKER, nullTtl);
+        } else if (local) {
+            twoLevelCache.put(key, value, timeout, unit);
+        } else {
+            redisTemplate.opsForValue().set(key, value, timeout, unit);
+        }
+        return value;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("等待缓存加载时被中断", e);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,78 @@
+package com.example.cache;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 按块分配的ID位图，每个ID占1位
+ * 每块覆盖65536个连续ID（8KB），只为出现过的ID范围分配块，自增ID下基本没有空洞。
+ * 写入通过CAS完成，新增块时复制块索引，可以在读取的同时并发写入
+ */
+public class IdBitmap {
+
+    private static final int CHUNK_SHIFT = 16;
+
+    private static final int CHUNK_WORDS = 1 << (CHUNK_SHIFT - 6);
+
+    private static final long CHUNK_MASK = (1L << CHUNK_SHIFT) - 1;
+
+    private final long maxId;
+
+    private volatile AtomicLongArray[] chunks = new AtomicLongArray[0];
+
+    /**
+     * @param maxId 可记录的最大ID，更大的ID不记录
+     */
+    public IdBitmap(long maxId) {
+        this.maxId = maxId;
+    }
+
+    /**
+     * 记录ID，超出范围时返回false
+     */
+    public boolean add(long id) {
+        if (id < 0 || id > maxId) {
+            return false;
+        }
+        int index = (int) (id >>> CHUNK_SHIFT);
+        AtomicLongArray[] current = chunks;
+        AtomicLongArray chunk = index < current.length ? current[index] : null;
+        if (chunk == null) {
+            chunk = createChunk(index);
+        }
+        int word = (int) ((id & CHUNK_MASK) >>> 6);
+        long mask = 1L << id;
+        long value = chunk.get(word);
+        while ((value & mask) == 0 && !chunk.compareAndSet(word, value, value | mask)) {
+            value = chunk.get(word);
+        }
+        return true;
+    }
+
+    public boolean contains(long id) {
+        if (id < 0 || id > maxId) {
+            return false;
+        }
+        int index = (int) (id >>> CHUNK_SHIFT);
+        AtomicLongArray[] current = chunks;
+        if (index >= current.length || current[index] == null) {
+            return false;
+        }
+        return (current[index].get((int) ((id & CHUNK_MASK) >>> 6)) & (1L << id)) != 0;
+    }
+
+    public long getMaxId() {
+        return maxId;
+    }
+
+    private synchronized AtomicLongArray createChunk(int index) {
+        AtomicLongArray[] current = chunks;
+        if (index < current.length && current[index] != null) {
+            return current[index];
+        }
+        AtomicLongArray[] next = Arrays.copyOf(current, Math.max(index + 1, current.length));
+        next[index] = new AtomicLongArray(CHUNK_WORDS);
+        chunks = next;
+        return next[index];
+    }
+}
\ No newline at end of file
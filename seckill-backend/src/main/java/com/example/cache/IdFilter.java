@@ -0,0 +1,215 @@
+package com.example.cache;
+
+import com.example.service.DataSourceRouter;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * ID存在性过滤器
+ * 每类ID（商品、秒杀活动、用户）一个布隆过滤器，在访问Redis和数据库之前拦截不可能存在的ID。
+ * 启动时从数据库全量构建，新增数据时写入并通过Redis广播给其他实例，定期全量重建以清理已删除的ID。
+ * 构建完成之前所有ID都视为可能存在；广播可能丢失，只有不超过构建水位的ID才会被判定为不存在
+ */
+@Component
+public class IdFilter implements MessageListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdFilter.class);
+
+    private static final String CHANNEL = "idfilter:add";
+
+    /**
+     * ID类型及其所在的表
+     */
+    public enum IdType {
+        PRODUCT("tb_product"),
+        SECKILL("tb_seckill_product"),
+        USER("tb_user");
+
+        private final String table;
+
+        IdType(String table) {
+            this.table = table;
+        }
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSourceRouter dataSourceRouter;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private RedisMessageListenerContainer listenerContainer;
+
+    @Value("${seckill.id-filter.enabled:true}")
+    private boolean enabled;
+
+    @Value("${seckill.id-filter.expected-insertions:1000000}")
+    private long expectedInsertions;
+
+    @Value("${seckill.id-filter.fpp:0.01}")
+    private double fpp;
+
+    /**
+     * 构建水位比读到的最大ID小多少：自增ID不一定按顺序提交，构建时略小于最大ID的ID可能还未提交
+     */
+    @Value("${seckill.id-filter.watermark-lag:1000}")
+    private long watermarkLag;
+
+    private final Map<IdType, Filter> filters = new EnumMap<>(IdType.class);
+
+    @PostConstruct
+    public void init() {
+        for (IdType type : IdType.values()) {
+            filters.put(type, new Filter());
+        }
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+    }
+
+    /**
+     * ID是否可能存在，返回false时一定不存在
+     * 超过构建水位的ID只能通过广播登记，广播丢失或订阅晚于发布时过滤器中没有该ID，视为可能存在
+     */
+    public boolean mightExist(IdType type, Long id) {
+        if (!enabled || id == null) {
+            return true;
+        }
+        Filter filter = filters.get(type);
+        BloomFilter current = filter.current;
+        return current == null || id > filter.watermark || current.mightContain(id);
+    }
+
+    /**
+     * 新增数据后登记ID，并通知其他实例
+     */
+    public void add(IdType type, Long id) {
+        if (!enabled || id == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // 事务提交后再登记：此时重建过程要么能从数据库读到该ID，要么正在接收新增的ID
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publish(type, id);
+                }
+            });
+        } else {
+            publish(type, id);
+        }
+    }
+
+    private void publish(IdType type, Long id) {
+        filters.get(type).put(id);
+        stringRedisTemplate.convertAndSend(CHANNEL, type.name() + ":" + id);
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int sep = body.indexOf(':');
+        try {
+            filters.get(IdType.valueOf(body.substring(0, sep))).put(Long.parseLong(body.substring(sep + 1)));
+        } catch (RuntimeException e) {
+            logger.warn("无效的ID过滤器消息: {}", body);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    /**
+     * 全量重建，删除的ID在重建后才会被过滤
+     */
+    @Scheduled(initialDelayString = "${seckill.id-filter.rebuild-interval:PT1H}",
+            fixedDelayString = "${seckill.id-filter.rebuild-interval:PT1H}")
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        for (IdType type : IdType.values()) {
+            try {
+                rebuild(type);
+            } catch (RuntimeException e) {
+                logger.warn("重建ID过滤器失败: {}", type, e);
+            }
+        }
+    }
+
+    private void rebuild(IdType type) {
+        Filter filter = filters.get(type);
+        BloomFilter next = new BloomFilter(expectedInsertions, fpp);
+        // 重建期间新增的ID同时写入新旧过滤器，避免丢失；在主库上读取，只读库可能还没有复制到刚提交的ID
+        filter.building = next;
+        try {
+            long[] count = new long[1];
+            long[] maxId = new long[1];
+            dataSourceRouter.onPrimary(() -> jdbcTemplate.query(con -> {
+                PreparedStatement statement = con.prepareStatement("SELECT id FROM " + type.table);
+                // MySQL驱动按流式返回结果，不把整张表读入内存；其他数据库（如压测用的H2）不支持该取值
+                if ("MySQL".equals(con.getMetaData().getDatabaseProductName())) {
+                    statement.setFetchSize(Integer.MIN_VALUE);
+                }
+                return statement;
+            }, rs -> {
+                long id = rs.getLong(1);
+                next.put(id);
+                maxId[0] = Math.max(maxId[0], id);
+                count[0]++;
+            }));
+            filter.watermark = maxId[0] - watermarkLag;
+            filter.current = next;
+            logger.info("ID过滤器 {} 构建完成，共 {} 个ID", type, count[0]);
+        } finally {
+            filter.building = null;
+        }
+    }
+
+    private static final class Filter {
+
+        private volatile BloomFilter current;
+
+        private volatile BloomFilter building;
+
+        /**
+         * 构建水位，不超过水位且不在过滤器中的ID一定不存在
+         */
+        private volatile long watermark;
+
+        private void put(long id) {
+            BloomFilter building = this.building;
+            if (building != null) {
+                building.put(id);
+            }
+            BloomFilter current = this.current;
+            if (current != null) {
+                current.put(id);
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,209 @@
+package com.example.cache;
+
+import com.example.common.Result;
+import com.example.metrics.SeckillMetrics;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 响应体缓存
+ * 缓存列表接口最终的JSON响应字节及其gzip压缩结果，并以内容摘要作为ETag。
+ * 缓存key与数据缓存key一致，数据缓存通过TwoLevelCache删除（包括其他实例广播的删除）时一并失效，
+ * 因此响应只在数据变更后重新生成一次；并发的未命中请求通过 {@link CacheAside#singleFlight} 合并为一次生成
+ */
+@Component
+public class ResponseCache {
+
+    /**
+     * 单飞key前缀，与数据缓存的加载区分开
+     */
+    private static final String FLIGHT_PREFIX = "response:";
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private CacheAside cacheAside;
+
+    @Autowired
+    private TwoLevelCache twoLevelCache;
+
+    @Autowired
+    private SeckillMetrics metrics;
+
+    /**
+     * 响应在nginx和浏览器中的缓存时间
+     */
+    @Value("${seckill.response-cache.max-age:1s}")
+    private Duration maxAge;
+
+    /**
+     * 响应在本地的最长缓存时间，防止绕过应用直接修改数据库后长期返回旧数据
+     */
+    @Value("${seckill.response-cache.ttl:60s}")
+    private Duration ttl;
+
+    private final Map<String, CachedResponse> entries = new ConcurrentHashMap<>();
+
+    /**
+     * 每次失效递增，生成期间发生过失效的响应不写入缓存
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        twoLevelCache.addEvictionListener(key -> {
+            generation.incrementAndGet();
+            entries.remove(key);
+        });
+    }
+
+    /**
+     * 返回缓存的响应，缓存不存在时调用loader生成
+     * 请求带有匹配的If-None-Match时返回304，客户端支持gzip时返回压缩后的响应体。
+     * loader返回的结果不是成功状态时不缓存
+     */
+    public ResponseEntity<byte[]> respond(String key, HttpServletRequest request, Supplier<Result<?>> loader) {
+        CachedResponse response = entries.get(key);
+        boolean hit = response != null && !response.isExpired();
+        metrics.cacheAccess(key, SeckillMetrics.LEVEL_RESPONSE, hit);
+        if (!hit) {
+            response = cacheAside.singleFlight(FLIGHT_PREFIX + key, () -> build(key, loader));
+            if (response.etag == null) {
+                return ResponseEntity.ok()
+                        .cacheControl(CacheControl.noStore())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(response.body);
+            }
+        }
+
+        CacheControl cacheControl = CacheControl.maxAge(maxAge).cachePublic();
+        // nginx压缩响应时会把ETag改为弱校验形式(W/"...")，这里按包含关系匹配
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null && ifNoneMatch.contains(response.etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(response.etag)
+                    .cacheControl(cacheControl)
+                    .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                    .build();
+        }
+
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .eTag(response.etag)
+                .cacheControl(cacheControl)
+                .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                .contentType(MediaType.APPLICATION_JSON);
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            return builder.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(response.gzipBody);
+        }
+        return builder.body(response.body);
+    }
+
+    /**
+     * 生成响应并写入缓存，同一key同时只有一个线程执行
+     */
+    private CachedResponse build(String key, Supplier<Result<?>> loader) {
+        // 上一次生成可能刚刚完成
+        CachedResponse cached = entries.get(key);
+        if (cached != null && !cached.isExpired()) {
+            return cached;
+        }
+        long gen = generation.get();
+        Result<?> result = loader.get();
+        byte[] body = toJson(result);
+        if (!Integer.valueOf(200).equals(result.getCode())) {
+            return CachedResponse.uncacheable(body);
+        }
+        CachedResponse response = new CachedResponse(body, System.nanoTime() + ttl.toNanos());
+        if (generation.get() == gen) {
+            entries.put(key, response);
+        }
+        return response;
+    }
+
+    private byte[] toJson(Result<?> result) {
+        try {
+            return objectMapper.writeValueAsBytes(result);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 缓存的响应：原始JSON、gzip压缩后的JSON以及ETag；不可缓存的响应只有原始JSON
+     */
+    private static final class CachedResponse {
+
+        private final byte[] body;
+
+        private final byte[] gzipBody;
+
+        private final String etag;
+
+        private final long expireAt;
+
+        private CachedResponse(byte[] body, long expireAt) {
+            this.body = body;
+            this.gzipBody = gzip(body);
+            this.etag = "\"" + digest(body) + "\"";
+            this.expireAt = expireAt;
+        }
+
+        private CachedResponse(byte[] body) {
+            this.body = body;
+            this.gzipBody = null;
+            this.etag = null;
+            this.expireAt = 0;
+        }
+
+        private static CachedResponse uncacheable(byte[] body) {
+            return new CachedResponse(body);
+        }
+
+        private boolean isExpired() {
+            return System.nanoTime() - expireAt > 0;
+        }
+
+        private static byte[] gzip(byte[] body) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4 + 64);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+                gzip.write(body);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return out.toByteArray();
+        }
+
+        private static String digest(byte[] body) {
+            try {
+                byte[] hash = MessageDigest.getInstance("SHA-256").digest(body);
+                return HexFormat.of().formatHex(hash, 0, 16);
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,138 @@
+package com.example.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 二级缓存：本地L1(Caffeine) + Redis L2
+ * 读取时优先命中本地缓存，省去一次Redis往返和JSON反序列化；
+ * 删除缓存时同时删除Redis中的key，并通过发布订阅通知其他实例清除本地缓存
+ */
+@Component
+public class TwoLevelCache implements MessageListener {
+
+    private static final String CHANNEL = "cache:invalidate";
+
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private RedisMessageListenerContainer listenerContainer;
+
+    @Value("${seckill.cache.local.maximum-size:10000}")
+    private long maximumSize;
+
+    @Value("${seckill.cache.local.expire-after-write:60s}")
+    private Duration expireAfterWrite;
+
+    private Cache<String, Object> localCache;
+
+    /**
+     * 缓存失效监听器，本实例删除缓存或收到其他实例的失效广播时回调
+     */
+    private final List<Consumer<String>> evictionListeners = new CopyOnWriteArrayList<>();
+
+    @PostConstruct
+    public void init() {
+        localCache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .build();
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+    }
+
+    /**
+     * 只读取本地缓存，不访问Redis
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T getLocal(String key) {
+        return (T) localCache.getIfPresent(key);
+    }
+
+    /**
+     * 只写入本地缓存，用于把从Redis读到的值回填到本地
+     */
+    public void putLocal(String key, Object value) {
+        localCache.put(key, value);
+    }
+
+    /**
+     * 写入缓存（Redis和本地）
+     */
+    public void put(String key, Object value, long timeout, TimeUnit unit) {
+        redisTemplate.opsForValue().set(key, value, timeout, unit);
+        localCache.put(key, value);
+    }
+
+    /**
+     * 批量写入缓存，Redis写入通过一次管道完成
+     */
+    public void putAll(Map<String, Object> values, long timeout, TimeUnit unit) {
+        redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object execute(RedisOperations operations) throws DataAccessException {
+                values.forEach((key, value) -> operations.opsForValue().set(key, value, timeout, unit));
+                return null;
+            }
+        });
+        localCache.putAll(values);
+    }
+
+    /**
+     * 删除缓存，并通知所有实例清除本地缓存
+     */
+    public void evict(String... keys) {
+        for (String key : keys) {
+            redisTemplate.delete(key);
+            invalidateLocal(key);
+            stringRedisTemplate.convertAndSend(CHANNEL, key);
+        }
+    }
+
+    /**
+     * 注册缓存失效监听器，用于清理由缓存数据派生出的其他本地数据
+     */
+    public void addEvictionListener(Consumer<String> listener) {
+        evictionListeners.add(listener);
+    }
+
+    /**
+     * 接收其他实例广播的缓存失效消息
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        invalidateLocal(new String(message.getBody(), StandardCharsets.UTF_8));
+    }
+
+    private void invalidateLocal(String key) {
+        localCache.invalidate(key);
+        for (Consumer<String> listener : evictionListeners) {
+            listener.accept(key);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,320 @@
+package com.example.cache;
+
+import com.example.dto.OrderCursor;
+import com.example.entity.SeckillOrder;
+import com.example.metrics.SeckillMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.RedisPipelineException;
+import org.springframework.data.redis.connection.RedisScriptingCommands;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * 用户订单列表缓存
+ * 每个用户缓存最近的若干笔订单：ZSET按创建时间记录订单ID，HASH保存订单内容。
+ * 订单ID补齐为定长字符串，创建时间相同的订单在ZSET中按ID排序。
+ * 新订单提交后直接追加到已缓存的用户中并裁剪到上限，不需要失效后重新查询整个列表；
+ * 用户未缓存时新订单先记为待合并，加载最近订单写入缓存时一并合并，加载与提交交错时不会丢单；
+ * 缓存包含用户全部订单时HASH中带有完整标记，翻页超出缓存范围且不完整时由调用方查询数据库
+ */
+@Component
+public class UserOrderCache {
+
+    /**
+     * 与旧版本整体缓存订单列表的 user:orders:{userId} 区分，避免滚动升级时类型冲突
+     */
+    private static final String KEY_PREFIX = "orders:user:";
+
+    /**
+     * 完整标记，与订单ID共用HASH
+     */
+    private static final String COMPLETE_FIELD = "complete";
+
+    /**
+     * 用户已缓存时追加订单，超出上限时移除最早的订单并清除完整标记；
+     * 用户未缓存时记入待合并的订单（KEYS[3]、KEYS[4]），避免与正在进行的加载交错而丢失，由下一次写入缓存时合并
+     */
+    private static final DefaultRedisScript<Long> APPEND_SCRIPT = new DefaultRedisScript<>(
+            "local zset, hash = KEYS[1], KEYS[2]\n" +
+            "local pending = redis.call('exists', KEYS[2]) == 0\n" +
+            "if pending then zset, hash = KEYS[3], KEYS[4] end\n" +
+            "redis.call('zadd', zset, ARGV[1], ARGV[2])\n" +
+            "redis.call('hset', hash, ARGV[2], ARGV[3])\n" +
+            "local over = redis.call('zcard', zset) - tonumber(ARGV[4])\n" +
+            "if over > 0 then\n" +
+            "  local removed = redis.call('zrange', zset, 0, over - 1)\n" +
+            "  redis.call('zremrangebyrank', zset, 0, over - 1)\n" +
+            "  redis.call('hdel', hash, unpack(removed))\n" +
+            "  if not pending then redis.call('hdel', hash, 'complete') end\n" +
+            "end\n" +
+            "if pending then\n" +
+            "  redis.call('expire', KEYS[3], ARGV[5])\n" +
+            "  redis.call('expire', KEYS[4], ARGV[5])\n" +
+            "end\n" +
+            "return 1",
+            Long.class);
+
+    /**
+     * 写入加载的最近订单并合并待合并的订单，裁剪到上限
+     * 用户已被其他请求缓存时不覆盖：加载结果可能早于其后追加的订单
+     * ARGV: 上限、过期秒数、加载结果是否完整，之后每三个一组为 score、订单ID、订单内容
+     */
+    private static final DefaultRedisScript<Long> FILL_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('exists', KEYS[2]) == 1 then return 0 end\n" +
+            "for i = 4, #ARGV, 3 do\n" +
+            "  redis.call('zadd', KEYS[1], ARGV[i], ARGV[i + 1])\n" +
+            "  redis.call('hset', KEYS[2], ARGV[i + 1], ARGV[i + 2])\n" +
+            "end\n" +
+            "local pending = redis.call('zrange', KEYS[3], 0, -1, 'withscores')\n" +
+            "for i = 1, #pending, 2 do\n" +
+            "  local body = redis.call('hget', KEYS[4], pending[i])\n" +
+            "  if body then\n" +
+            "    redis.call('zadd', KEYS[1], pending[i + 1], pending[i])\n" +
+            "    redis.call('hset', KEYS[2], pending[i], body)\n" +
+            "  end\n" +
+            "end\n" +
+            "redis.call('del', KEYS[3], KEYS[4])\n" +
+            "local complete = ARGV[3] == '1'\n" +
+            "local over = redis.call('zcard', KEYS[1]) - tonumber(ARGV[1])\n" +
+            "if over > 0 then\n" +
+            "  local removed = redis.call('zrange', KEYS[1], 0, over - 1)\n" +
+            "  redis.call('zremrangebyrank', KEYS[1], 0, over - 1)\n" +
+            "  redis.call('hdel', KEYS[2], unpack(removed))\n" +
+            "  complete = false\n" +
+            "end\n" +
+            "-- HASH不能为空，已缓存的用户以HASH是否存在判断\n" +
+            "if complete then\n" +
+            "  redis.call('hset', KEYS[2], 'complete', '1')\n" +
+            "else\n" +
+            "  redis.call('hset', KEYS[2], 'loaded', '1')\n" +
+            "end\n" +
+            "redis.call('expire', KEYS[1], ARGV[2])\n" +
+            "redis.call('expire', KEYS[2], ARGV[2])\n" +
+            "return 1",
+            Long.class);
+
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private SeckillMetrics metrics;
+
+    /**
+     * 每个用户最多缓存的订单数
+     */
+    @Value("${seckill.order-history.cache-size:100}")
+    private int cacheSize;
+
+    @Value("${seckill.order-history.ttl:10m}")
+    private Duration ttl;
+
+    public int getCacheSize() {
+        return cacheSize;
+    }
+
+    /**
+     * 从缓存中取游标之后的最多limit笔订单
+     * 用户未缓存时调用loader加载最近 {@link #getCacheSize()} 笔订单并写入缓存；
+     * 缓存中的订单不足limit笔且缓存不完整时返回null，由调用方查询数据库
+     */
+    public List<SeckillOrder> page(Long userId, OrderCursor cursor, int limit, Supplier<List<SeckillOrder>> loader) {
+        String zsetKey = zsetKey(userId);
+        String hashKey = hashKey(userId);
+
+        List<Object> results = stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object execute(RedisOperations operations) throws DataAccessException {
+                operations.opsForZSet().reverseRangeWithScores(zsetKey, 0, -1);
+                operations.opsForHash().hasKey(hashKey, COMPLETE_FIELD);
+                operations.hasKey(hashKey);
+                return null;
+            }
+        });
+        if (!Boolean.TRUE.equals(results.get(2))) {
+            metrics.cacheAccess(hashKey, SeckillMetrics.LEVEL_REDIS, false);
+            List<SeckillOrder> recent = loader.get();
+            fill(userId, recent);
+            return page(recent, cursor, limit, recent.size() < cacheSize);
+        }
+        metrics.cacheAccess(hashKey, SeckillMetrics.LEVEL_REDIS, true);
+
+        @SuppressWarnings("unchecked")
+        Set<ZSetOperations.TypedTuple<String>> entries = (Set<ZSetOperations.TypedTuple<String>>) results.get(0);
+        boolean complete = Boolean.TRUE.equals(results.get(1));
+
+        List<String> ids = new ArrayList<>(limit);
+        for (ZSetOperations.TypedTuple<String> entry : entries) {
+            long id = Long.parseLong(entry.getValue());
+            if (cursor == null || cursor.isBefore(entry.getScore().longValue(), id)) {
+                ids.add(entry.getValue());
+                if (ids.size() == limit) {
+                    break;
+                }
+            }
+        }
+        if (ids.size() < limit && !complete) {
+            return null;
+        }
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<Object> values = redisTemplate.opsForHash().multiGet(hashKey, new ArrayList<>(ids));
+        List<SeckillOrder> orders = new ArrayList<>(values.size());
+        for (Object value : values) {
+            if (!(value instanceof SeckillOrder order)) {
+                // ZSET和HASH不一致（如过期时间差），交给数据库
+                return null;
+            }
+            orders.add(order);
+        }
+        return orders;
+    }
+
+    /**
+     * 新订单提交后追加到已缓存的用户订单列表
+     */
+    public void append(List<SeckillOrder> orders) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    appendNow(orders);
+                }
+            });
+        } else {
+            appendNow(orders);
+        }
+    }
+
+    /**
+     * 整批订单在一个管道中执行追加脚本，一次往返
+     * 管道中只能用EVALSHA引用脚本，Redis中没有缓存该脚本时整批改用EVAL重新执行；追加是幂等的，重复执行不会多出订单
+     */
+    private void appendNow(List<SeckillOrder> orders) {
+        if (orders.isEmpty()) {
+            return;
+        }
+        RedisSerializer<Object> serializer = valueSerializer();
+        byte[] max = bytes(String.valueOf(cacheSize));
+        byte[] ttlSeconds = bytes(String.valueOf(ttl.getSeconds()));
+        List<byte[][]> calls = new ArrayList<>(orders.size());
+        for (SeckillOrder order : orders) {
+            List<String> keys = keys(order.getUserId());
+            calls.add(new byte[][]{
+                    bytes(keys.get(0)), bytes(keys.get(1)), bytes(keys.get(2)), bytes(keys.get(3)),
+                    bytes(String.valueOf(OrderCursor.toMillis(order.getCreateTime()))),
+                    bytes(member(order.getId())),
+                    serializer.serialize(order),
+                    max,
+                    ttlSeconds});
+        }
+        try {
+            pipelineAppend(calls, true);
+        } catch (RedisPipelineException e) {
+            pipelineAppend(calls, false);
+        }
+    }
+
+    private void pipelineAppend(List<byte[][]> calls, boolean cachedScript) {
+        byte[] script = bytes(APPEND_SCRIPT.getScriptAsString());
+        stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            RedisScriptingCommands scripting = connection.scriptingCommands();
+            for (byte[][] keysAndArgs : calls) {
+                if (cachedScript) {
+                    scripting.evalSha(APPEND_SCRIPT.getSha1(), ReturnType.INTEGER, 4, keysAndArgs);
+                } else {
+                    scripting.eval(script, ReturnType.INTEGER, 4, keysAndArgs);
+                }
+            }
+            return null;
+        });
+    }
+
+    /**
+     * 写入用户最近的订单，并合并加载期间提交的订单
+     */
+    private void fill(Long userId, List<SeckillOrder> recent) {
+        RedisSerializer<Object> serializer = valueSerializer();
+        List<Object> args = new ArrayList<>(3 + recent.size() * 3);
+        args.add(bytes(String.valueOf(cacheSize)));
+        args.add(bytes(String.valueOf(ttl.getSeconds())));
+        args.add(bytes(recent.size() < cacheSize ? "1" : "0"));
+        for (SeckillOrder order : recent) {
+            args.add(bytes(String.valueOf(OrderCursor.toMillis(order.getCreateTime()))));
+            args.add(bytes(member(order.getId())));
+            args.add(serializer.serialize(order));
+        }
+        stringRedisTemplate.execute(FILL_SCRIPT, RedisSerializer.byteArray(), null, keys(userId), args.toArray());
+    }
+
+    private static List<SeckillOrder> page(List<SeckillOrder> recent, OrderCursor cursor, int limit, boolean complete) {
+        List<SeckillOrder> orders = new ArrayList<>(limit);
+        for (SeckillOrder order : recent) {
+            if (cursor == null || cursor.isBefore(OrderCursor.toMillis(order.getCreateTime()), order.getId())) {
+                orders.add(order);
+                if (orders.size() == limit) {
+                    return orders;
+                }
+            }
+        }
+        return complete ? orders : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private RedisSerializer<Object> valueSerializer() {
+        return (RedisSerializer<Object>) redisTemplate.getHashValueSerializer();
+    }
+
+    private static String zsetKey(Long userId) {
+        return KEY_PREFIX + userId + ":ids";
+    }
+
+    private static String hashKey(Long userId) {
+        return KEY_PREFIX + userId;
+    }
+
+    /**
+     * 缓存的ZSET和HASH，以及用户未缓存时追加的待合并订单
+     */
+    private static List<String> keys(Long userId) {
+        return Arrays.asList(zsetKey(userId), hashKey(userId),
+                KEY_PREFIX + userId + ":pending:ids", KEY_PREFIX + userId + ":pending");
+    }
+
+    /**
+     * ZSET成员和HASH字段：19位补零的订单ID，字典序与数值顺序一致
+     */
+    private static String member(Long id) {
+        String value = String.valueOf(id);
+        return "0".repeat(19 - value.length()) + value;
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
\ No newline at end of file
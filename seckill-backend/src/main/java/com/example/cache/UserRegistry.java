@@ -0,0 +1,211 @@
+package com.example.cache;
+
+import com.example.service.DataSourceRouter;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * 已注册用户ID的本地位图
+ * 秒杀接口据此判断用户是否存在，不访问Redis和数据库：
+ * 启动时先订阅新增通知，再按ID分批从主库读取全部用户ID，读到的最大ID减去安全间隔作为同步水位；
+ * 之后注册的用户在事务提交后写入位图并通过Redis广播给其他实例。
+ * 不超过水位且不在位图中的ID一定不存在；超过水位的ID（可能乱序提交或漏收了广播）无法确定，由调用方回源查询。
+ * 定期全量重新同步，重建期间新增的ID同时写入新旧位图
+ */
+@Component
+public class UserRegistry implements MessageListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserRegistry.class);
+
+    private static final String CHANNEL = "user:registry:add";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSourceRouter dataSourceRouter;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private RedisMessageListenerContainer listenerContainer;
+
+    @Value("${seckill.user-registry.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 每批读取的用户ID数
+     */
+    @Value("${seckill.user-registry.batch-size:10000}")
+    private int batchSize;
+
+    /**
+     * 位图记录的最大用户ID，更大的ID始终回源查询
+     */
+    @Value("${seckill.user-registry.max-user-id:1073741823}")
+    private long maxUserId;
+
+    /**
+     * 同步水位比读到的最大ID小多少：自增ID不一定按顺序提交，同步时略小于最大ID的用户可能还未提交，
+     * 提交后只能依靠广播登记，广播丢失时不能判定为不存在
+     */
+    @Value("${seckill.user-registry.watermark-lag:1000}")
+    private long watermarkLag;
+
+    /**
+     * 已同步的用户，同步完成之前为null
+     */
+    private volatile Snapshot current;
+
+    private volatile IdBitmap building;
+
+    @PostConstruct
+    public void init() {
+        if (enabled) {
+            listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+        }
+    }
+
+    /**
+     * 用户是否存在：本地能确定时返回true/false，尚未同步完成或ID超过同步水位时返回null
+     */
+    public Boolean exists(Long userId) {
+        Snapshot snapshot = current;
+        if (snapshot == null || userId == null) {
+            return null;
+        }
+        if (snapshot.bitmap.contains(userId)) {
+            return Boolean.TRUE;
+        }
+        return userId <= snapshot.watermark ? Boolean.FALSE : null;
+    }
+
+    /**
+     * 新注册的用户，在事务提交后写入并通知其他实例
+     */
+    public void register(Long userId) {
+        if (!enabled) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // 事务提交后再登记：此时同步过程要么能从数据库读到该ID，要么已经在接收新增通知
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publish(userId);
+                }
+            });
+        } else {
+            publish(userId);
+        }
+    }
+
+    /**
+     * 回源查询确认存在的用户只记录在本实例
+     */
+    public void addLocal(Long userId) {
+        put(userId);
+    }
+
+    private void publish(Long userId) {
+        put(userId);
+        stringRedisTemplate.convertAndSend(CHANNEL, String.valueOf(userId));
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        try {
+            put(Long.parseLong(body));
+        } catch (NumberFormatException e) {
+            logger.warn("无效的用户注册消息: {}", body);
+        }
+    }
+
+    private void put(long userId) {
+        IdBitmap building = this.building;
+        if (building != null) {
+            building.add(userId);
+        }
+        Snapshot snapshot = current;
+        if (snapshot != null) {
+            snapshot.bitmap.add(userId);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        sync();
+    }
+
+    /**
+     * 全量同步，在主库上按ID分批流式读取，只读库可能缺少刚提交的用户
+     */
+    @Scheduled(initialDelayString = "${seckill.user-registry.sync-interval:PT1H}",
+            fixedDelayString = "${seckill.user-registry.sync-interval:PT1H}")
+    public void sync() {
+        if (!enabled) {
+            return;
+        }
+        IdBitmap next = new IdBitmap(maxUserId);
+        building = next;
+        try {
+            long lastId = 0;
+            long count = 0;
+            List<Long> ids;
+            do {
+                long after = lastId;
+                ids = dataSourceRouter.onPrimary(() -> jdbcTemplate.queryForList(
+                        "SELECT id FROM tb_user WHERE id > ? ORDER BY id LIMIT ?", Long.class, after, batchSize));
+                for (Long id : ids) {
+                    next.add(id);
+                }
+                if (!ids.isEmpty()) {
+                    lastId = ids.get(ids.size() - 1);
+                }
+                count += ids.size();
+            } while (ids.size() == batchSize);
+            long watermark = Math.min(lastId - watermarkLag, maxUserId);
+            current = new Snapshot(next, watermark);
+            logger.info("用户ID位图同步完成，共 {} 个用户，同步水位 {}", count, watermark);
+        } catch (RuntimeException e) {
+            logger.warn("同步用户ID位图失败", e);
+        } finally {
+            building = null;
+        }
+    }
+
+    private static final class Snapshot {
+
+        private final IdBitmap bitmap;
+
+        /**
+         * 同步水位，不超过水位且不在位图中的ID一定不存在
+         */
+        private final long watermark;
+
+        private Snapshot(IdBitmap bitmap, long watermark) {
+            this.bitmap = bitmap;
+            this.watermark = watermark;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,50 @@
+package com.example.common;
+
+/**
+ * 秒杀结果状态
+ * 1 ~ -4 与 lua/seckill.lua 脚本的返回值保持一致
+ */
+public enum SeckillStatus {
+
+    SUCCESS(1, "秒杀成功"),
+    SOLD_OUT(0, "库存不足，秒杀已结束"),
+    REPEATED(-1, "您已经购买过该商品，不能重复购买"),
+    NOT_STARTED(-2, "秒杀活动未开始"),
+    ENDED(-3, "秒杀活动已结束"),
+    NOT_PRELOADED(-4, "秒杀库存未预热"),
+    NOT_FOUND(-5, "秒杀活动不存在"),
+    FAILED(-6, "秒杀失败，请稍后重试"),
+    BUSY(-7, "系统繁忙，请稍后重试"),
+    USER_NOT_FOUND(-8, "用户不存在"),
+    QUEUED(2, "排队中，请稍后查询秒杀结果");
+
+    private final int code;
+    private final String message;
+
+    SeckillStatus(int code, String message) {
+        this.code = code;
+        this.message = message;
+    }
+
+    public int getCode() {
+        return code;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * 根据脚本返回值解析状态
+     */
+    public static SeckillStatus of(Long code) {
+        if (code != null) {
+            for (SeckillStatus status : values()) {
+                if (status.code == code) {
+                    return status;
+                }
+            }
+        }
+        return FAILED;
+    }
+}
\ No newline at end of file
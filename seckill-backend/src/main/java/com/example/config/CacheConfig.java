@@ -0,0 +1,48 @@
+package com.example.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * 缓存配置类
+ * 开启定时任务，用于定期重建ID过滤器和预热即将开始的秒杀活动
+ */
+@Configuration
+@EnableScheduling
+public class CacheConfig {
+
+    /**
+     * 缓存提前刷新线程池
+     * 刷新只是优化，队列满时拒绝提交（抛出异常由调用方清理加载标记），由下一次读取重新触发
+     */
+    @Bean(name = "cacheRefreshExecutor")
+    public TaskExecutor cacheRefreshExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(2);
+        executor.setQueueCapacity(100);
+        executor.setThreadNamePrefix("cache-refresh-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * 秒杀活动预热线程池，多个活动并行预热
+     */
+    @Bean(name = "warmupExecutor")
+    public TaskExecutor warmupExecutor(@Value("${seckill.warmup.threads:4}") int threads) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setThreadNamePrefix("seckill-warmup-");
+        executor.initialize();
+        return executor;
+    }
+}
\ No newline at end of file
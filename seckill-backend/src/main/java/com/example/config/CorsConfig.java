@@ -1,19 +1,29 @@
 package com.example.config;
 
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
+import org.springframework.web.filter.CorsFilter;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 /**
  * 跨域配置
+ * 除Spring MVC的跨域映射外，以最高优先级的过滤器处理跨域，
+ * 在控制器之前返回响应的过滤器（如会话令牌校验的401）也带有跨域响应头
  */
 @Configuration
 public class CorsConfig implements WebMvcConfigurer {
 
+    /**
+     * 跨域过滤器的顺序，需要在其后执行的过滤器使用更大的值
+     */
+    public static final int CORS_FILTER_ORDER = Ordered.HIGHEST_PRECEDENCE;
+
     @Override
     public void addCorsMappings(CorsRegistry registry) {
         registry.addMapping("/**")
@@ -36,4 +46,11 @@ public class CorsConfig implements WebMvcConfigurer {
         source.registerCorsConfiguration("/**", configuration);
         return source;
     }
+
+    @Bean
+    public FilterRegistrationBean<CorsFilter> corsFilter(CorsConfigurationSource corsConfigurationSource) {
+        FilterRegistrationBean<CorsFilter> registration = new FilterRegistrationBean<>(new CorsFilter(corsConfigurationSource));
+        registration.setOrder(CORS_FILTER_ORDER);
+        return registration;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,53 @@
+package com.example.config;
+
+import com.example.service.OrderShardRouter;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 订单分片配置类
+ * 在Hibernate准备SQL时把逻辑表 tb_seckill_order 替换为当前线程所在的分片表
+ */
+@Configuration
+public class OrderShardingConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer orderShardingCustomizer(OrderShardRouter router) {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR,
+                new OrderShardStatementInspector(router));
+    }
+
+    /**
+     * 订单表名改写
+     * 开启分片后，不在 {@link OrderShardRouter#withShard} 范围内访问订单表的SQL直接报错，
+     * 避免漏掉路由的查询悄悄落到逻辑表上
+     */
+    static final class OrderShardStatementInspector implements StatementInspector {
+
+        private static final Pattern TABLE = Pattern.compile("\\b" + OrderShardRouter.LOGICAL_TABLE + "\\b");
+
+        private final OrderShardRouter router;
+
+        OrderShardStatementInspector(OrderShardRouter router) {
+            this.router = router;
+        }
+
+        @Override
+        public String inspect(String sql) {
+            if (!router.isEnabled() || !sql.contains(OrderShardRouter.LOGICAL_TABLE)) {
+                return sql;
+            }
+            String table = OrderShardRouter.currentTable();
+            if (table == null) {
+                throw new IllegalStateException("订单表已分片，访问订单表时必须指定分片: " + sql);
+            }
+            return TABLE.matcher(sql).replaceAll(Matcher.quoteReplacement(table));
+        }
+    }
+}
\ No newline at end of file
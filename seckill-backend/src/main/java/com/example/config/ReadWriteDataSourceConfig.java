@@ -0,0 +1,89 @@
+package com.example.config;
+
+import com.example.service.DataSourceRouter;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * 读写分离数据源配置类
+ * 主库和只读库各自使用独立的连接池，大量查询占满只读库连接池时不影响下单事务获取主库连接。
+ * 对外提供的数据源外层是 LazyConnectionDataSourceProxy：事务开始时不获取物理连接，
+ * 执行第一条SQL时事务的只读属性已经确定，再由 {@link DataSourceRouter} 选择连接池
+ */
+@Configuration
+@ConditionalOnProperty(name = "seckill.datasource.replica.enabled", havingValue = "true")
+public class ReadWriteDataSourceConfig {
+
+    private static final String PRIMARY = "primary";
+
+    private static final String REPLICA = "replica";
+
+    /**
+     * 主库连接池，沿用 spring.datasource 配置
+     */
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    /**
+     * 只读库连接池，用户名密码默认与主库相同
+     */
+    @Bean
+    @ConfigurationProperties("seckill.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(DataSourceProperties properties,
+                                              @Value("${seckill.datasource.replica.url}") String url,
+                                              @Value("${seckill.datasource.replica.username:${spring.datasource.username}}") String username,
+                                              @Value("${seckill.datasource.replica.password:${spring.datasource.password}}") String password) {
+        return DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .driverClassName(properties.determineDriverClassName())
+                .url(url)
+                .username(username)
+                .password(password)
+                .build();
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary,
+                                 @Qualifier("replicaDataSource") DataSource replica,
+                                 DataSourceRouter router) {
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(router);
+        routing.setTargetDataSources(Map.of(PRIMARY, primary, REPLICA, replica));
+        routing.setDefaultTargetDataSource(primary);
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    /**
+     * 按当前线程的事务状态选择主库或只读库
+     */
+    static final class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+        private final DataSourceRouter router;
+
+        ReadWriteRoutingDataSource(DataSourceRouter router) {
+            this.router = router;
+        }
+
+        @Override
+        protected Object determineCurrentLookupKey() {
+            return router.useReplica() ? REPLICA : PRIMARY;
+        }
+    }
+}
\ No newline at end of file
@@ -1,15 +1,21 @@
 package com.example.config;
 
+import com.example.cache.BinaryRedisSerializer;
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import com.fasterxml.jackson.annotation.PropertyAccessor;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.jsontype.impl.LaissezFaireSubTypeValidator;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.ClassPathResource;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 /**
@@ -18,18 +24,25 @@ import org.springframework.data.redis.serializer.StringRedisSerializer;
 @Configuration
 public class RedisConfig {
 
+    /**
+     * 缓存值的序列化方式：json 为带类型信息的JSON，binary 为紧凑二进制格式（见 BinaryRedisSerializer）
+     */
+    @Value("${seckill.redis.serializer:json}")
+    private String serializer;
+
+    /**
+     * 二进制格式下编码后超过该字节数的值使用LZ4压缩
+     */
+    @Value("${seckill.redis.compress-threshold:1024}")
+    private int compressThreshold;
+
     @Bean
     @SuppressWarnings("all")
     public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory factory) {
         RedisTemplate<String, Object> template = new RedisTemplate<String, Object>();
         template.setConnectionFactory(factory);
 
-        Jackson2JsonRedisSerializer jackson2JsonRedisSerializer = new Jackson2JsonRedisSerializer(Object.class);
-        ObjectMapper om = new ObjectMapper();
-        om.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.ANY);
-        om.activateDefaultTyping(LaissezFaireSubTypeValidator.instance, ObjectMapper.DefaultTyping.NON_FINAL);
-        om.registerModule(new JavaTimeModule());
-        jackson2JsonRedisSerializer.setObjectMapper(om);
+        RedisSerializer<Object> valueSerializer = valueSerializer(serializer, compressThreshold);
 
         StringRedisSerializer stringRedisSerializer = new StringRedisSerializer();
 
@@ -37,12 +50,64 @@ public class RedisConfig {
         template.setKeySerializer(stringRedisSerializer);
         // hash的key也采用String的序列化方式
         template.setHashKeySerializer(stringRedisSerializer);
-        // value序列化方式采用jackson
-        template.setValueSerializer(jackson2JsonRedisSerializer);
-        // hash的value序列化方式采用jackson
-        template.setHashValueSerializer(jackson2JsonRedisSerializer);
+        // value序列化方式采用jackson或二进制格式
+        template.setValueSerializer(valueSerializer);
+        // hash的value序列化方式采用jackson或二进制格式
+        template.setHashValueSerializer(valueSerializer);
         template.afterPropertiesSet();
 
         return template;
     }
+
+    /**
+     * 创建缓存值序列化器，性能基准测试也通过这里创建，保证与线上配置一致
+     */
+    @SuppressWarnings("all")
+    public static RedisSerializer<Object> valueSerializer(String type, int compressThreshold) {
+        Jackson2JsonRedisSerializer jackson2JsonRedisSerializer = new Jackson2JsonRedisSerializer(Object.class);
+        ObjectMapper om = new ObjectMapper();
+        om.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.ANY);
+        om.activateDefaultTyping(LaissezFaireSubTypeValidator.instance, ObjectMapper.DefaultTyping.NON_FINAL);
+        om.registerModule(new JavaTimeModule());
+        jackson2JsonRedisSerializer.setObjectMapper(om);
+
+        // 二进制格式无法处理的类型和切换前写入的JSON数据仍由jackson处理
+        return "binary".equalsIgnoreCase(type)
+                ? new BinaryRedisSerializer(jackson2JsonRedisSerializer, compressThreshold)
+                : jackson2JsonRedisSerializer;
+    }
+
+    /**
+     * 秒杀Lua脚本
+     * 通过EVALSHA执行，脚本只在首次执行时上传一次
+     */
+    @Bean
+    public DefaultRedisScript<Long> seckillScript() {
+        DefaultRedisScript<Long> script = new DefaultRedisScript<>();
+        script.setLocation(new ClassPathResource("lua/seckill.lua"));
+        script.setResultType(Long.class);
+        return script;
+    }
+
+    /**
+     * 分片库存扣减脚本，用户所属分片库存为空时到其他分片扣减
+     */
+    @Bean
+    public DefaultRedisScript<Long> seckillStockScript() {
+        DefaultRedisScript<Long> script = new DefaultRedisScript<>();
+        script.setLocation(new ClassPathResource("lua/seckill_stock.lua"));
+        script.setResultType(Long.class);
+        return script;
+    }
+
+    /**
+     * Redis消息监听容器
+     * 用于在多个应用实例之间广播本地状态的变更
+     */
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory factory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(factory);
+        return container;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,55 @@
+package com.example.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * 异步下单配置类
+ */
+@Configuration
+public class SeckillOrderConfig {
+
+    /**
+     * 订单队列消费者线程池
+     * 每个消费者常驻一个线程，因此线程数与消费者数量一致；
+     * 启用虚拟线程时每个消费者运行在独立的虚拟线程上
+     */
+    @Bean(name = "seckillOrderExecutor")
+    public TaskExecutor seckillOrderExecutor(@Value("${seckill.order.consumers:4}") int consumers,
+                                             @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        if (virtualThreads) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("seckill-order-");
+            executor.setVirtualThreads(true);
+            executor.setConcurrencyLimit(consumers);
+            executor.setTaskTerminationTimeout(30000);
+            return executor;
+        }
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(consumers);
+        executor.setMaxPoolSize(consumers);
+        executor.setQueueCapacity(0);
+        executor.setThreadNamePrefix("seckill-order-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * 非阻塞秒杀接口的持久化线程池
+     * 事件循环线程只负责Redis预扣，订单落库等阻塞操作在这里执行；
+     * 线程数有上限，积压任务超过队列容量时直接拒绝，避免数据库被突发流量压垮
+     */
+    @Bean(name = "seckillPersistenceScheduler", destroyMethod = "dispose")
+    public Scheduler seckillPersistenceScheduler(@Value("${seckill.reactive.persistence-threads:16}") int threads,
+                                                 @Value("${seckill.reactive.persistence-queue-capacity:10000}") int queueCapacity) {
+        return Schedulers.newBoundedElastic(threads, queueCapacity, "seckill-persist");
+    }
+}
\ No newline at end of file
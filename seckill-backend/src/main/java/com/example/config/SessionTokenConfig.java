@@ -0,0 +1,94 @@
+package com.example.config;
+
+import com.example.common.Result;
+import com.example.service.SessionTokenService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * 会话令牌配置类
+ * 秒杀接口在进入控制器之前校验 Authorization: Bearer 令牌，通过后把令牌中的用户ID放入请求属性，
+ * 控制器以此作为下单用户，不再信任请求体中的userId
+ */
+@Configuration
+public class SessionTokenConfig {
+
+    @Bean
+    public FilterRegistrationBean<SessionTokenFilter> sessionTokenFilter(
+            SessionTokenService tokenService, ObjectMapper objectMapper,
+            @Value("${seckill.session.required:true}") boolean required) {
+        FilterRegistrationBean<SessionTokenFilter> registration =
+                new FilterRegistrationBean<>(new SessionTokenFilter(tokenService, objectMapper, required));
+        registration.addUrlPatterns("/api/seckill/do", "/api/seckill/reactive/do");
+        // 在跨域过滤器之后执行，401响应同样带有跨域响应头
+        registration.setOrder(CorsConfig.CORS_FILTER_ORDER + 1);
+        return registration;
+    }
+
+    /**
+     * 令牌校验过滤器
+     * 令牌无效或过期时返回401；未携带令牌时，required=false 则放行，由控制器按请求体中的userId处理（兼容旧客户端）
+     */
+    static final class SessionTokenFilter extends OncePerRequestFilter {
+
+        private static final String BEARER = "Bearer ";
+
+        private final SessionTokenService tokenService;
+
+        private final ObjectMapper objectMapper;
+
+        private final boolean required;
+
+        SessionTokenFilter(SessionTokenService tokenService, ObjectMapper objectMapper, boolean required) {
+            this.tokenService = tokenService;
+            this.objectMapper = objectMapper;
+            this.required = required;
+        }
+
+        @Override
+        protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+                throws ServletException, IOException {
+            // 跨域预检请求不带令牌
+            if (HttpMethod.OPTIONS.matches(request.getMethod())) {
+                chain.doFilter(request, response);
+                return;
+            }
+            String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+            if (header == null || !header.startsWith(BEARER)) {
+                if (required) {
+                    reject(response, "未登录");
+                } else {
+                    chain.doFilter(request, response);
+                }
+                return;
+            }
+            Long userId = tokenService.verify(header.substring(BEARER.length()).trim());
+            if (userId == null) {
+                reject(response, "登录已失效，请重新登录");
+                return;
+            }
+            request.setAttribute(SessionTokenService.USER_ID_ATTRIBUTE, userId);
+            chain.doFilter(request, response);
+        }
+
+        private void reject(HttpServletResponse response, String message) throws IOException {
+            response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.setCharacterEncoding("UTF-8");
+            objectMapper.writeValue(response.getOutputStream(), Result.error(401, message));
+        }
+    }
+}
\ No newline at end of file
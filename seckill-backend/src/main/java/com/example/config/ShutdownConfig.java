@@ -2,10 +2,12 @@ package com.example.config;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationListener;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.core.task.TaskExecutor;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
@@ -40,9 +42,18 @@ public class ShutdownConfig {
 
     /**
      * 自定义任务执行器，用于优雅关闭
+     * 启用虚拟线程时改为每个任务一个虚拟线程
      */
     @Bean(name = "shutdownTaskExecutor")
-    public TaskExecutor shutdownTaskExecutor() {
+    public TaskExecutor shutdownTaskExecutor(@Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        if (virtualThreads) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("shutdown-");
+            executor.setVirtualThreads(true);
+            executor.setConcurrencyLimit(5);
+            executor.setTaskTerminationTimeout(30000);
+            return executor;
+        }
+
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
         executor.setCorePoolSize(2);
         executor.setMaxPoolSize(5);
@@ -1,12 +1,15 @@
 package com.example.controller;
 
+import com.example.cache.ResponseCache;
 import com.example.common.Result;
 import com.example.entity.Product;
 import com.example.service.ProductService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -22,15 +25,21 @@ public class ProductController {
     @Autowired
     private ProductService productService;
 
+    @Autowired
+    private ResponseCache responseCache;
+
     @GetMapping
     @Operation(summary = "获取所有商品", description = "获取所有状态正常的商品列表")
-    public Result<List<Product>> getAllProducts() {
-        try {
-            List<Product> products = productService.getAllProducts();
-            return Result.success("获取商品列表成功", products);
-        } catch (Exception e) {
-            return Result.error("获取商品列表失败: " + e.getMessage());
-        }
+    public ResponseEntity<byte[]> getAllProducts(HttpServletRequest request) {
+        // 响应体在商品变更前一直复用，支持ETag/304
+        return responseCache.respond("products:all", request, () -> {
+            try {
+                List<Product> products = productService.getAllProducts();
+                return Result.success("获取商品列表成功", products);
+            } catch (Exception e) {
+                return Result.error("获取商品列表失败: " + e.getMessage());
+            }
+        });
     }
 
     @GetMapping("/{id}")
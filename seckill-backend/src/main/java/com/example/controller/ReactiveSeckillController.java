@@ -0,0 +1,88 @@
+package com.example.controller;
+
+import com.example.common.Result;
+import com.example.common.SeckillStatus;
+import com.example.dto.SeckillRequest;
+import com.example.metrics.SeckillMetrics;
+import com.example.service.ReactiveSeckillService;
+import com.example.service.SessionTokenService;
+import io.micrometer.core.instrument.Timer;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestAttribute;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 非阻塞秒杀控制器
+ * 返回Mono，请求在Servlet异步模式下处理：库存预扣期间不占用请求线程，
+ * 结果就绪后再写回响应。返回格式与 /api/seckill/do 一致
+ */
+@RestController
+@RequestMapping("/api/seckill/reactive")
+@Tag(name = "秒杀管理", description = "秒杀相关接口")
+public class ReactiveSeckillController {
+
+    @Autowired
+    private ReactiveSeckillService reactiveSeckillService;
+
+    @Autowired
+    private SeckillMetrics metrics;
+
+    @PostMapping("/do")
+    @Operation(summary = "执行秒杀（非阻塞）", description = "库存预扣在Redis事件循环上完成，订单落库在独立线程池中执行")
+    public Mono<Result<Map<String, Object>>> doSeckill(
+            @Parameter(description = "秒杀请求参数", required = true)
+            @Valid @RequestBody SeckillRequest request,
+            @Parameter(hidden = true)
+            @RequestAttribute(name = SessionTokenService.USER_ID_ATTRIBUTE, required = false) Long tokenUserId) {
+        Long userId = tokenUserId != null ? tokenUserId : request.getUserId();
+        Long seckillId = request.getSeckillId();
+
+        if (userId == null || seckillId == null) {
+            return Mono.just(Result.error("用户ID和秒杀商品ID不能为空"));
+        }
+        if (request.getUserId() != null && !request.getUserId().equals(userId)) {
+            return Mono.just(Result.error(403, "请求中的用户ID与登录用户不一致"));
+        }
+
+        Timer.Sample sample = metrics.start();
+        return reactiveSeckillService.doSeckill(userId, seckillId, tokenUserId != null)
+                .doOnNext(seckillResult ->
+                        metrics.recordRequest(sample, SeckillMetrics.ENDPOINT_REACTIVE, seckillResult.getStatus()))
+                .doOnError(e -> metrics.recordRequest(sample, SeckillMetrics.ENDPOINT_REACTIVE, null))
+                .map(seckillResult -> {
+                    SeckillStatus status = seckillResult.getStatus();
+
+                    Map<String, Object> result = new HashMap<>();
+                    result.put("userId", userId);
+                    result.put("seckillId", seckillId);
+                    result.put("status", status.getCode());
+                    result.put("message", status.getMessage());
+
+                    if (status == SeckillStatus.SUCCESS) {
+                        result.put("orderNo", seckillResult.getOrderNo());
+                        return Result.success("秒杀成功", result);
+                    } else if (status == SeckillStatus.QUEUED) {
+                        result.put("ticket", seckillResult.getOrderNo());
+                        return Result.success(status.getMessage(), result);
+                    } else if (status == SeckillStatus.BUSY) {
+                        return Result.<Map<String, Object>>error(429, status.getMessage());
+                    } else if (status == SeckillStatus.USER_NOT_FOUND) {
+                        return Result.<Map<String, Object>>error(status.getMessage());
+                    } else {
+                        return Result.error(500, status.getMessage(), result);
+                    }
+                })
+                .onErrorResume(e -> Mono.just(Result.error("秒杀失败: " + e.getMessage())));
+    }
+}
\ No newline at end of file
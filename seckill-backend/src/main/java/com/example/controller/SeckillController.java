@@ -1,15 +1,27 @@
 package com.example.controller;
 
+import com.example.cache.ResponseCache;
 import com.example.common.Result;
+import com.example.common.SeckillStatus;
+import com.example.dto.OrderCursor;
+import com.example.dto.OrderPage;
 import com.example.dto.SeckillRequest;
+import com.example.dto.SeckillResult;
 import com.example.entity.SeckillProduct;
 import com.example.entity.SeckillOrder;
+import com.example.metrics.SeckillMetrics;
+import com.example.service.SeckillOrderQueue;
 import com.example.service.SeckillService;
+import com.example.service.SeckillWarmupService;
+import com.example.service.SessionTokenService;
 import com.example.service.UserService;
+import io.micrometer.core.instrument.Timer;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import jakarta.validation.Valid;
 
@@ -31,15 +43,27 @@ public class SeckillController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private ResponseCache responseCache;
+
+    @Autowired
+    private SeckillWarmupService warmupService;
+
+    @Autowired
+    private SeckillMetrics metrics;
+
     @GetMapping("/list")
     @Operation(summary = "获取秒杀商品列表", description = "获取所有正在进行或即将开始的秒杀商品")
-    public Result<List<SeckillProduct>> getSeckillProductList() {
-        try {
-            List<SeckillProduct> products = seckillService.getAllSeckillProducts();
-            return Result.success("获取秒杀商品列表成功", products);
-        } catch (Exception e) {
-            return Result.error("获取秒杀商品列表失败: " + e.getMessage());
-        }
+    public ResponseEntity<byte[]> getSeckillProductList(HttpServletRequest request) {
+        // 响应体在秒杀商品变更前一直复用，支持ETag/304
+        return responseCache.respond("seckill:products:all", request, () -> {
+            try {
+                List<SeckillProduct> products = seckillService.getAllSeckillProducts();
+                return Result.success("获取秒杀商品列表成功", products);
+            } catch (Exception e) {
+                return Result.error("获取秒杀商品列表失败: " + e.getMessage());
+            }
+        });
     }
 
     @GetMapping("/product/{id}")
@@ -60,44 +84,96 @@ public class SeckillController {
     }
 
     @PostMapping("/do")
-    @Operation(summary = "执行秒杀", description = "用户执行秒杀操作")
+    @Operation(summary = "执行秒杀", description = "用户执行秒杀操作，用户身份取自 Authorization: Bearer 会话令牌")
     public Result<Map<String, Object>> doSeckill(
             @Parameter(description = "秒杀请求参数", required = true)
-            @Valid @RequestBody SeckillRequest request) {
+            @Valid @RequestBody SeckillRequest request,
+            @Parameter(hidden = true)
+            @RequestAttribute(name = SessionTokenService.USER_ID_ATTRIBUTE, required = false) Long tokenUserId) {
+        Timer.Sample sample = metrics.start();
+        SeckillStatus outcome = null;
         try {
-            Long userId = request.getUserId();
+            Long userId = tokenUserId != null ? tokenUserId : request.getUserId();
             Long seckillId = request.getSeckillId();
 
             if (userId == null || seckillId == null) {
+                outcome = SeckillStatus.FAILED;
                 return Result.error("用户ID和秒杀商品ID不能为空");
             }
 
-            // 检查用户是否存在
-            if (userService.getUserById(userId) == null) {
-                return Result.error("用户不存在");
+            // 不允许替其他用户下单，避免订单被悄悄记到令牌对应的用户名下
+            if (request.getUserId() != null && !request.getUserId().equals(userId)) {
+                outcome = SeckillStatus.FAILED;
+                return Result.error(403, "请求中的用户ID与登录用户不一致");
+            }
+
+            // 已售罄的活动直接拒绝，不再查询用户和Redis
+            if (seckillService.isSoldOut(seckillId)) {
+                outcome = SeckillStatus.SOLD_OUT;
+                return Result.error(SeckillStatus.SOLD_OUT.getMessage());
             }
 
-            // 检查是否已经购买过
-            if (seckillService.hasUserPurchased(userId, seckillId)) {
-                return Result.error("您已经购买过该商品，不能重复购买");
+            // 准入限流，超出活动承载能力的请求直接返回繁忙，由客户端稍后重试
+            if (!seckillService.tryAdmit(seckillId)) {
+                outcome = SeckillStatus.BUSY;
+                return Result.error(429, SeckillStatus.BUSY.getMessage());
             }
 
-            // 执行秒杀
-            boolean success = seckillService.doSeckill(userId, seckillId);
+            // 令牌签发时用户已存在，只有未携带令牌的请求需要检查，通常只查本地用户ID位图
+            if (tokenUserId == null
+                    && !metrics.phase(SeckillMetrics.PHASE_USER_LOOKUP, () -> userService.exists(userId))) {
+                outcome = SeckillStatus.USER_NOT_FOUND;
+                return Result.error("用户不存在");
+            }
+
+            // 执行秒杀（重复购买检查已合并到秒杀脚本中）
+            SeckillResult seckillResult = seckillService.doSeckill(userId, seckillId);
+            SeckillStatus status = seckillResult.getStatus();
+            outcome = status;
 
             Map<String, Object> result = new HashMap<>();
             result.put("userId", userId);
             result.put("seckillId", seckillId);
+            result.put("status", status.getCode());
+            result.put("message", status.getMessage());
 
-            if (success) {
-                result.put("message", "秒杀成功");
+            if (status == SeckillStatus.SUCCESS) {
+                result.put("orderNo", seckillResult.getOrderNo());
                 return Result.success("秒杀成功", result);
+            } else if (status == SeckillStatus.QUEUED) {
+                result.put("ticket", seckillResult.getOrderNo());
+                return Result.success(status.getMessage(), result);
             } else {
-                result.put("message", "秒杀失败");
-                return Result.error("秒杀失败，可能是库存不足或活动已结束");
+                return Result.error(500, status.getMessage(), result);
             }
         } catch (Exception e) {
             return Result.error("秒杀失败: " + e.getMessage());
+        } finally {
+            metrics.recordRequest(sample, SeckillMetrics.ENDPOINT_CLASSIC, outcome);
+        }
+    }
+
+    @GetMapping("/result/{ticket}")
+    @Operation(summary = "查询秒杀结果", description = "异步下单模式下根据排队凭证查询订单创建结果")
+    public Result<Map<String, Object>> getSeckillResult(
+            @Parameter(description = "排队凭证", required = true)
+            @PathVariable("ticket") String ticket) {
+        try {
+            String status = seckillService.getSeckillResult(ticket);
+            if (status == null) {
+                return Result.error("排队凭证不存在或已过期");
+            }
+
+            Map<String, Object> result = new HashMap<>();
+            result.put("ticket", ticket);
+            result.put("status", status);
+            if (SeckillOrderQueue.TICKET_SUCCESS.equals(status)) {
+                result.put("orderNo", ticket);
+            }
+
+            return Result.success("查询成功", result);
+        } catch (Exception e) {
+            return Result.error("查询秒杀结果失败: " + e.getMessage());
         }
     }
 
@@ -117,18 +193,32 @@ public class SeckillController {
     }
 
     @PostMapping("/preload/{id}")
-    @Operation(summary = "预热秒杀库存", description = "将秒杀商品库存预热到Redis")
+    @Operation(summary = "预热秒杀库存", description = "将秒杀商品库存预热到Redis，进行中的活动需要指定force")
     public Result<String> preloadSeckillStock(
             @Parameter(description = "秒杀商品ID", required = true)
-            @PathVariable("id") Long id) {
+            @PathVariable("id") Long id,
+            @Parameter(description = "活动进行中时仍然重新预热")
+            @RequestParam(value = "force", defaultValue = "false") boolean force) {
         try {
-            seckillService.preloadSeckillStock(id);
+            seckillService.preloadSeckillStock(id, force);
             return Result.success("库存预热成功");
         } catch (Exception e) {
             return Result.error("库存预热失败: " + e.getMessage());
         }
     }
 
+    @GetMapping("/ready/{id}")
+    @Operation(summary = "查询预热状态", description = "查询秒杀活动的库存是否已预热、本实例缓存是否已就绪")
+    public Result<Map<String, Object>> getReadyState(
+            @Parameter(description = "秒杀商品ID", required = true)
+            @PathVariable("id") Long id) {
+        try {
+            return Result.success("查询成功", warmupService.getReadyState(id));
+        } catch (Exception e) {
+            return Result.error("查询预热状态失败: " + e.getMessage());
+        }
+    }
+
     @GetMapping("/check/{userId}/{seckillId}")
     @Operation(summary = "检查用户是否已购买", description = "检查用户是否已经购买过指定的秒杀商品")
     public Result<Map<String, Object>> checkUserPurchase(
@@ -151,13 +241,22 @@ public class SeckillController {
     }
 
     @GetMapping("/orders/{userId}")
-    @Operation(summary = "获取用户秒杀订单列表", description = "获取指定用户的所有秒杀订单")
-    public Result<List<SeckillOrder>> getUserOrders(
+    @Operation(summary = "获取用户秒杀订单列表", description = "按创建时间倒序分页获取用户的秒杀订单，after为上一页返回的nextCursor")
+    public Result<OrderPage> getUserOrders(
             @Parameter(description = "用户ID", required = true)
-            @PathVariable("userId") Long userId) {
+            @PathVariable("userId") Long userId,
+            @Parameter(description = "分页游标，第一页不传")
+            @RequestParam(value = "after", required = false) String after,
+            @Parameter(description = "每页条数，最大100")
+            @RequestParam(value = "limit", defaultValue = "20") int limit) {
         try {
-            List<SeckillOrder> orders = seckillService.getUserOrders(userId);
-            return Result.success("获取用户订单列表成功", orders);
+            if (limit < 1 || limit > 100) {
+                return Result.error(400, "每页条数必须在1到100之间");
+            }
+            OrderPage page = seckillService.getUserOrders(userId, OrderCursor.parse(after), limit);
+            return Result.success("获取用户订单列表成功", page);
+        } catch (IllegalArgumentException e) {
+            return Result.error(400, e.getMessage());
         } catch (Exception e) {
             return Result.error("获取用户订单列表失败: " + e.getMessage());
         }
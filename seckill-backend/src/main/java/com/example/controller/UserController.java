@@ -4,6 +4,7 @@ import com.example.common.Result;
 import com.example.dto.UserLoginRequest;
 import com.example.dto.UserRegisterRequest;
 import com.example.entity.User;
+import com.example.service.SessionTokenService;
 import com.example.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -26,6 +27,9 @@ public class UserController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private SessionTokenService tokenService;
+
     @PostMapping("/register")
     @Operation(summary = "用户注册", description = "新用户注册")
     public Result<String> register(
@@ -47,7 +51,9 @@ public class UserController {
 
             Map<String, Object> result = new HashMap<>();
             result.put("user", user);
-            result.put("token", "mock-token-" + user.getId()); // 简单的模拟token
+            // 签名令牌，秒杀接口据此识别用户
+            result.put("token", tokenService.issue(user.getId()));
+            result.put("expiresIn", tokenService.getTtlSeconds());
 
             return Result.success("登录成功", result);
         } else {
@@ -0,0 +1,66 @@
+package com.example.dto;
+
+import com.example.entity.SeckillOrder;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * 订单分页游标：上一页最后一条订单的 (创建时间, ID)，格式为 "创建时间毫秒_订单ID"
+ * 下一页从严格排在该订单之后（更早）的订单开始
+ */
+public final class OrderCursor {
+
+    private final long createMillis;
+
+    private final long id;
+
+    public OrderCursor(long createMillis, long id) {
+        this.createMillis = createMillis;
+        this.id = id;
+    }
+
+    public static OrderCursor of(SeckillOrder order) {
+        return new OrderCursor(toMillis(order.getCreateTime()), order.getId());
+    }
+
+    /**
+     * 解析游标，为空时返回null（第一页），格式错误时抛出IllegalArgumentException
+     */
+    public static OrderCursor parse(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        int sep = cursor.indexOf('_');
+        try {
+            return new OrderCursor(Long.parseLong(cursor.substring(0, sep)), Long.parseLong(cursor.substring(sep + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("无效的分页游标: " + cursor);
+        }
+    }
+
+    /**
+     * 按 (创建时间, ID) 倒序，排在游标之后的订单
+     */
+    public boolean isBefore(long createMillis, long id) {
+        return createMillis < this.createMillis || (createMillis == this.createMillis && id < this.id);
+    }
+
+    public LocalDateTime getCreateTime() {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(createMillis), ZoneId.systemDefault());
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    @Override
+    public String toString() {
+        return createMillis + "_" + id;
+    }
+}
\ No newline at end of file
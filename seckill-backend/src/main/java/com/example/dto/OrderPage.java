@@ -0,0 +1,52 @@
+package com.example.dto;
+
+import com.example.entity.SeckillOrder;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+/**
+ * 按游标分页的订单列表
+ * 订单按创建时间倒序排列，nextCursor作为下一页请求的after参数，没有更多数据时为null
+ */
+@Schema(description = "订单分页结果")
+public class OrderPage {
+
+    @Schema(description = "本页订单")
+    private final List<SeckillOrder> orders;
+
+    @Schema(description = "下一页游标")
+    private final String nextCursor;
+
+    @Schema(description = "是否还有更多订单")
+    private final boolean hasMore;
+
+    private OrderPage(List<SeckillOrder> orders, String nextCursor, boolean hasMore) {
+        this.orders = orders;
+        this.nextCursor = nextCursor;
+        this.hasMore = hasMore;
+    }
+
+    /**
+     * 根据多取一条的查询结果构造分页：结果超过limit条说明还有下一页
+     */
+    public static OrderPage of(List<SeckillOrder> orders, int limit) {
+        if (orders.size() <= limit) {
+            return new OrderPage(orders, null, false);
+        }
+        List<SeckillOrder> page = orders.subList(0, limit);
+        return new OrderPage(page, OrderCursor.of(page.get(limit - 1)).toString(), true);
+    }
+
+    public List<SeckillOrder> getOrders() {
+        return orders;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+}
\ No newline at end of file
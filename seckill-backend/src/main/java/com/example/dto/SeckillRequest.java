@@ -9,8 +9,10 @@ import jakarta.validation.constraints.*;
 @Schema(description = "秒杀请求")
 public class SeckillRequest {
 
-    @Schema(description = "用户ID", example = "1", required = true)
-    @NotNull(message = "用户ID不能为空")
+    /**
+     * 携带会话令牌时以令牌中的用户为准，该字段可以省略，填写时必须与令牌中的用户一致
+     */
+    @Schema(description = "用户ID，仅未携带会话令牌的旧客户端需要；携带令牌时必须与令牌中的用户一致", example = "1")
     @Positive(message = "用户ID必须为正数")
     private Long userId;
 
@@ -0,0 +1,35 @@
+package com.example.dto;
+
+import com.example.common.SeckillStatus;
+
+/**
+ * 秒杀执行结果
+ * 同步模式下orderNo为已创建的订单号，异步模式下orderNo同时作为查询结果的凭证(ticket)
+ */
+public class SeckillResult {
+
+    private final SeckillStatus status;
+
+    private final String orderNo;
+
+    private SeckillResult(SeckillStatus status, String orderNo) {
+        this.status = status;
+        this.orderNo = orderNo;
+    }
+
+    public static SeckillResult of(SeckillStatus status) {
+        return new SeckillResult(status, null);
+    }
+
+    public static SeckillResult of(SeckillStatus status, String orderNo) {
+        return new SeckillResult(status, orderNo);
+    }
+
+    public SeckillStatus getStatus() {
+        return status;
+    }
+
+    public String getOrderNo() {
+        return orderNo;
+    }
+}
\ No newline at end of file
@@ -1,6 +1,7 @@
 package com.example.entity;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 
 import java.math.BigDecimal;
@@ -13,8 +14,10 @@ import java.time.LocalDateTime;
 @Table(name = "tb_seckill_order")
 public class SeckillOrder {
 
+    /**
+     * 主键由SegmentIdAllocator分配，不使用数据库自增，以支持JDBC批量插入
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
     private String orderNo;
@@ -23,6 +26,8 @@ public class SeckillOrder {
 
     private Long productId;
 
+    private Long seckillId;
+
     private BigDecimal seckillPrice;
 
     private Integer status;
@@ -30,6 +35,13 @@ public class SeckillOrder {
     @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
     private LocalDateTime createTime;
 
+    /**
+     * 库存扣减是否已同步到商品表和秒杀商品表，0-未同步 1-已同步
+     * 由StockFlusher批量同步，历史订单默认为已同步
+     */
+    @JsonIgnore
+    private Integer stockFlushed;
+
     public SeckillOrder() {}
 
     public SeckillOrder(String orderNo, Long userId, Long productId, BigDecimal seckillPrice) {
@@ -72,6 +84,14 @@ public class SeckillOrder {
         this.productId = productId;
     }
 
+    public Long getSeckillId() {
+        return seckillId;
+    }
+
+    public void setSeckillId(Long seckillId) {
+        this.seckillId = seckillId;
+    }
+
     public BigDecimal getSeckillPrice() {
         return seckillPrice;
     }
@@ -96,6 +116,14 @@ public class SeckillOrder {
         this.createTime = createTime;
     }
 
+    public Integer getStockFlushed() {
+        return stockFlushed;
+    }
+
+    public void setStockFlushed(Integer stockFlushed) {
+        this.stockFlushed = stockFlushed;
+    }
+
     @Override
     public String toString() {
         return "SeckillOrder{" +
@@ -103,6 +131,7 @@ public class SeckillOrder {
                 ", orderNo='" + orderNo + '\'' +
                 ", userId=" + userId +
                 ", productId=" + productId +
+                ", seckillId=" + seckillId +
                 ", seckillPrice=" + seckillPrice +
                 ", status=" + status +
                 ", createTime=" + createTime +
@@ -37,6 +37,12 @@ public class SeckillProduct {
     @Column(name = "status")
     private Integer status;
 
+    /**
+     * Redis库存分片数，为空时使用全局配置 seckill.stock.shards
+     */
+    @Column(name = "stock_shards")
+    private Integer stockShards;
+
     @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
     @Column(name = "create_time", updatable = false)
     private LocalDateTime createTime;
@@ -109,6 +115,14 @@ public class SeckillProduct {
         this.status = status;
     }
 
+    public Integer getStockShards() {
+        return stockShards;
+    }
+
+    public void setStockShards(Integer stockShards) {
+        this.stockShards = stockShards;
+    }
+
     public LocalDateTime getCreateTime() {
         return createTime;
     }
@@ -127,6 +141,7 @@ public class SeckillProduct {
                 ", startTime=" + startTime +
                 ", endTime=" + endTime +
                 ", status=" + status +
+                ", stockShards=" + stockShards +
                 ", createTime=" + createTime +
                 '}';
     }
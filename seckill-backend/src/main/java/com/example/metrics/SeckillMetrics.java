@@ -0,0 +1,158 @@
+package com.example.metrics;
+
+import com.example.common.SeckillStatus;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * 秒杀指标
+ * 1. seckill.requests：秒杀请求总耗时，按接口(endpoint)和结果(outcome)区分；
+ * 2. seckill.phase：秒杀各阶段耗时（用户查询、活动查询、库存预扣、订单落库、库存同步、缓存失效）；
+ * 3. cache.requests：缓存访问次数，按key模式(cache)、命中层级(level)和结果(result)区分，用于计算命中率；
+ * 4. seckill.stock.oversell：同步数据库库存时发现的超卖数量，按表(table)区分，应配置为大于0即告警。
+ * 分位数直方图在application.yml的management.metrics.distribution中开启，由Prometheus聚合计算
+ */
+@Component
+public class SeckillMetrics {
+
+    public static final String PHASE_USER_LOOKUP = "user_lookup";
+
+    public static final String PHASE_ACTIVITY_FETCH = "activity_fetch";
+
+    /**
+     * 重复购买检查和库存扣减在同一个Lua脚本中完成，只能整体计时
+     */
+    public static final String PHASE_STOCK_RESERVE = "stock_reserve";
+
+    public static final String PHASE_ORDER_PERSIST = "order_persist";
+
+    public static final String PHASE_ORDER_ENQUEUE = "order_enqueue";
+
+    /**
+     * 商品表和秒杀商品表的库存由StockFlusher批量扣减，不在请求路径上
+     */
+    public static final String PHASE_STOCK_FLUSH = "stock_flush";
+
+    public static final String PHASE_CACHE_INVALIDATION = "cache_invalidation";
+
+    public static final String ENDPOINT_CLASSIC = "classic";
+
+    public static final String ENDPOINT_REACTIVE = "reactive";
+
+    public static final String LEVEL_LOCAL = "local";
+
+    public static final String LEVEL_REDIS = "redis";
+
+    public static final String LEVEL_RESPONSE = "response";
+
+    @Autowired
+    private MeterRegistry registry;
+
+    private final Map<String, Timer> phaseTimers = new ConcurrentHashMap<>();
+
+    private final Map<String, Timer> requestTimers = new ConcurrentHashMap<>();
+
+    private final Map<String, Counter> cacheCounters = new ConcurrentHashMap<>();
+
+    /**
+     * 记录一个阶段的耗时
+     */
+    public <T> T phase(String phase, Supplier<T> action) {
+        return phaseTimer(phase).record(action);
+    }
+
+    public void phase(String phase, Runnable action) {
+        phaseTimer(phase).record(action);
+    }
+
+    public Timer phaseTimer(String phase) {
+        return phaseTimers.computeIfAbsent(phase, key -> Timer.builder("seckill.phase")
+                .description("秒杀各阶段耗时")
+                .tag("phase", key)
+                .register(registry));
+    }
+
+    public Timer.Sample start() {
+        return Timer.start(registry);
+    }
+
+    /**
+     * 记录一次秒杀请求的耗时和结果，outcome为状态名的小写形式，如 success、sold_out、repeated、not_started；
+     * status为null表示请求异常
+     */
+    public void recordRequest(Timer.Sample sample, String endpoint, SeckillStatus status) {
+        String outcome = status == null ? "error" : status.name().toLowerCase(Locale.ROOT);
+        sample.stop(requestTimers.computeIfAbsent(endpoint + ':' + outcome, key -> Timer.builder("seckill.requests")
+                .description("秒杀请求耗时")
+                .tag("endpoint", endpoint)
+                .tag("outcome", outcome)
+                .register(registry)));
+    }
+
+    /**
+     * 记录一次缓存访问，key中的数字段归并为{id}，如 seckill:product:{id}
+     */
+    public void cacheAccess(String key, String level, boolean hit) {
+        String pattern = keyPattern(key);
+        String result = hit ? "hit" : "miss";
+        cacheCounters.computeIfAbsent(pattern + '|' + level + '|' + result, k -> Counter.builder("cache.requests")
+                .description("缓存访问次数")
+                .tag("cache", pattern)
+                .tag("level", level)
+                .tag("result", result)
+                .register(registry))
+                .increment();
+    }
+
+    /**
+     * 记录同步数据库库存时发现的超卖数量
+     */
+    public void stockOversell(String table, long count) {
+        Counter.builder("seckill.stock.oversell")
+                .description("数据库库存同步时发现的超卖数量")
+                .tag("table", table)
+                .register(registry)
+                .increment(count);
+    }
+
+    static String keyPattern(String key) {
+        StringBuilder pattern = new StringBuilder(key.length());
+        int start = 0;
+        while (start <= key.length()) {
+            int end = key.indexOf(':', start);
+            if (end < 0) {
+                end = key.length();
+            }
+            if (start > 0) {
+                pattern.append(':');
+            }
+            if (isNumber(key, start, end)) {
+                pattern.append("{id}");
+            } else {
+                pattern.append(key, start, end);
+            }
+            start = end + 1;
+        }
+        return pattern.toString();
+    }
+
+    private static boolean isNumber(String key, int start, int end) {
+        if (start == end) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            if (!Character.isDigit(key.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
\ No newline at end of file
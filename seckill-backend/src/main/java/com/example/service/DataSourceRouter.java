@@ -0,0 +1,168 @@
+package com.example.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * 读写分离路由
+ * 开启只读库（seckill.datasource.replica.enabled）后，只读事务和事务外的查询走只读库，其余走主库。
+ * 定时检查只读库的复制延迟，延迟超过上限、复制中断或无法连接时只读查询临时回到主库。
+ * 复制延迟内读不到刚写入的数据，要求读到最新数据的查询（库存预热、库存同步、ID过滤器重建等）
+ * 在 {@link #onPrimary} 范围内执行
+ */
+@Component
+public class DataSourceRouter {
+
+    private static final Logger logger = LoggerFactory.getLogger(DataSourceRouter.class);
+
+    private static final ThreadLocal<Boolean> FORCE_PRIMARY = new ThreadLocal<>();
+
+    /**
+     * 只读库连接池，未开启读写分离时为null
+     */
+    @Autowired(required = false)
+    @Qualifier("replicaDataSource")
+    private DataSource replicaDataSource;
+
+    /**
+     * 允许的最大复制延迟
+     */
+    @Value("${seckill.datasource.replica.max-lag:PT2S}")
+    private Duration maxLag;
+
+    @Value("${seckill.datasource.replica.lag-check-interval:PT1S}")
+    private Duration lagCheckInterval;
+
+    /**
+     * 启动后第一次检查通过之前只读查询也走主库
+     */
+    private volatile boolean replicaUsable;
+
+    /**
+     * MySQL 8.0.22 起改为 SHOW REPLICA STATUS，旧版本只支持 SHOW SLAVE STATUS
+     */
+    private volatile boolean legacyStatus;
+
+    public boolean isEnabled() {
+        return replicaDataSource != null;
+    }
+
+    public boolean isReplicaUsable() {
+        return replicaUsable;
+    }
+
+    /**
+     * 当前线程获取连接时是否使用只读库
+     */
+    public boolean useReplica() {
+        if (!replicaUsable || FORCE_PRIMARY.get() != null) {
+            return false;
+        }
+        return !TransactionSynchronizationManager.isActualTransactionActive()
+                || TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    /**
+     * 在主库上执行，期间事务外的查询也使用主库连接
+     */
+    public <T> T onPrimary(Supplier<T> action) {
+        Boolean previous = FORCE_PRIMARY.get();
+        FORCE_PRIMARY.set(Boolean.TRUE);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                FORCE_PRIMARY.remove();
+            }
+        }
+    }
+
+    public void onPrimary(Runnable action) {
+        onPrimary(() -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * 写入后多久之内只读库可能还读不到：最大延迟加上一个检查周期，再加1秒（复制延迟按整秒统计）
+     */
+    public boolean isWithinLag(long timestampMillis) {
+        if (!isEnabled()) {
+            return false;
+        }
+        long window = maxLag.toMillis() + lagCheckInterval.toMillis() + 1000;
+        return System.currentTimeMillis() - timestampMillis < window;
+    }
+
+    /**
+     * 定时检查复制延迟
+     */
+    @Scheduled(fixedDelayString = "${seckill.datasource.replica.lag-check-interval:PT1S}")
+    public void checkReplicaLag() {
+        if (!isEnabled()) {
+            return;
+        }
+        boolean usable;
+        String reason = null;
+        try {
+            Long lag = replicaLagSeconds();
+            usable = lag != null && lag <= maxLag.getSeconds();
+            if (!usable) {
+                reason = lag == null ? "复制已停止" : "复制延迟 " + lag + " 秒";
+            }
+        } catch (SQLException | RuntimeException e) {
+            usable = false;
+            reason = "检查失败: " + e.getMessage();
+        }
+        if (usable != replicaUsable) {
+            replicaUsable = usable;
+            if (usable) {
+                logger.info("只读库恢复，只读查询切回只读库");
+            } else {
+                logger.warn("只读库不可用（{}），只读查询暂时使用主库", reason);
+            }
+        }
+    }
+
+    /**
+     * 只读库的复制延迟（秒），复制停止时返回null；未配置复制的库（如开发环境直接指向主库）视为没有延迟
+     */
+    private Long replicaLagSeconds() throws SQLException {
+        try (Connection con = replicaDataSource.getConnection();
+             Statement statement = con.createStatement()) {
+            if (!legacyStatus) {
+                try (ResultSet rs = statement.executeQuery("SHOW REPLICA STATUS")) {
+                    return readLag(rs, "Seconds_Behind_Source");
+                } catch (SQLException e) {
+                    legacyStatus = true;
+                }
+            }
+            try (ResultSet rs = statement.executeQuery("SHOW SLAVE STATUS")) {
+                return readLag(rs, "Seconds_Behind_Master");
+            }
+        }
+    }
+
+    private static Long readLag(ResultSet rs, String column) throws SQLException {
+        if (!rs.next()) {
+            return 0L;
+        }
+        long lag = rs.getLong(column);
+        return rs.wasNull() ? null : lag;
+    }
+}
\ No newline at end of file
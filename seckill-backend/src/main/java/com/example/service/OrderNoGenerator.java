@@ -0,0 +1,120 @@
+package com.example.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 订单号生成器（Snowflake变体）
+ * 63位正整数，从高到低依次为：
+ *   41位 毫秒时间戳（相对 2024-01-01 00:00:00 UTC）
+ *   5位  节点ID
+ *   12位 毫秒内序列号
+ *   5位  分片槽位（userId 的低5位）
+ * 同一节点生成的订单号严格递增，订单号中可直接解析出创建时间和用户所在分片
+ */
+@Component
+public class OrderNoGenerator {
+
+    public static final long EPOCH = 1704067200000L;
+
+    private static final int SLOT_BITS = 5;
+    private static final int SEQUENCE_BITS = 12;
+    private static final int WORKER_BITS = 5;
+
+    public static final int SLOT_COUNT = 1 << SLOT_BITS;
+    public static final int MAX_WORKER_ID = (1 << WORKER_BITS) - 1;
+
+    private static final long SLOT_MASK = SLOT_COUNT - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private static final int SEQUENCE_SHIFT = SLOT_BITS;
+    private static final int WORKER_SHIFT = SEQUENCE_SHIFT + SEQUENCE_BITS;
+    private static final int TIMESTAMP_SHIFT = WORKER_SHIFT + WORKER_BITS;
+
+    private final long workerId;
+
+    /**
+     * 高位为上次使用的时间戳，低12位为该毫秒内已用到的序列号
+     */
+    private final AtomicLong state = new AtomicLong();
+
+    public OrderNoGenerator(@Value("${seckill.worker-id:0}") long workerId) {
+        if (workerId < 0 || workerId > MAX_WORKER_ID) {
+            throw new IllegalArgumentException("seckill.worker-id 必须在 0-" + MAX_WORKER_ID + " 之间");
+        }
+        this.workerId = workerId;
+    }
+
+    /**
+     * 生成订单号
+     */
+    public String nextOrderNo(Long userId) {
+        return Long.toString(nextId(userId));
+    }
+
+    /**
+     * 生成数值形式的订单号
+     * 无锁实现：单个毫秒内序列号用尽或时钟回拨时借用下一毫秒，不自旋等待
+     */
+    public long nextId(Long userId) {
+        while (true) {
+            long now = System.currentTimeMillis() - EPOCH;
+            long prev = state.get();
+            long prevTimestamp = prev >>> SEQUENCE_BITS;
+            long timestamp;
+            long sequence;
+            if (now > prevTimestamp) {
+                timestamp = now;
+                sequence = 0;
+            } else {
+                timestamp = prevTimestamp;
+                sequence = (prev & SEQUENCE_MASK) + 1;
+                if (sequence > SEQUENCE_MASK) {
+                    timestamp++;
+                    sequence = 0;
+                }
+            }
+            if (state.compareAndSet(prev, (timestamp << SEQUENCE_BITS) | sequence)) {
+                return (timestamp << TIMESTAMP_SHIFT)
+                        | (workerId << WORKER_SHIFT)
+                        | (sequence << SEQUENCE_SHIFT)
+                        | (userId & SLOT_MASK);
+            }
+        }
+    }
+
+    /**
+     * 解析订单号中的创建时间（毫秒时间戳），非本生成器生成的订单号返回-1
+     */
+    public static long parseTimestamp(String orderNo) {
+        long id = parse(orderNo);
+        return id < 0 ? -1 : (id >>> TIMESTAMP_SHIFT) + EPOCH;
+    }
+
+    /**
+     * 解析订单号中的分片槽位，非本生成器生成的订单号返回-1
+     */
+    public static int parseSlot(String orderNo) {
+        long id = parse(orderNo);
+        return id < 0 ? -1 : (int) (id & SLOT_MASK);
+    }
+
+    private static long parse(String orderNo) {
+        if (orderNo == null || orderNo.isEmpty() || orderNo.length() > 19) {
+            return -1;
+        }
+        for (int i = 0; i < orderNo.length(); i++) {
+            char c = orderNo.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+        }
+        try {
+            return Long.parseLong(orderNo);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
\ No newline at end of file
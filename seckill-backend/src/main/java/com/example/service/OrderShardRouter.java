@@ -0,0 +1,142 @@
+package com.example.service;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * 订单分片路由
+ * 订单按用户ID水平拆分到N张表（或N个库中的同名表），分片 = (userId 低5位) % N。
+ * 订单号的低5位就是userId的低5位（见 {@link OrderNoGenerator}），因此按订单号查询也能直接定位分片，
+ * N必须是32的约数才能保证两种方式得到同一个分片。
+ * 通过Hibernate执行的订单SQL在 {@link #withShard} 范围内由 OrderShardStatementInspector 替换为分片表名，
+ * 直接拼接SQL的地方使用 {@link #table(int)}
+ */
+@Component
+public class OrderShardRouter {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderShardRouter.class);
+
+    public static final String LOGICAL_TABLE = "tb_seckill_order";
+
+    private static final ThreadLocal<String> CURRENT_TABLE = new ThreadLocal<>();
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSourceRouter dataSourceRouter;
+
+    /**
+     * 分片数，1表示不分片，直接使用 tb_seckill_order
+     */
+    @Value("${seckill.order.sharding.shards:1}")
+    private int shards;
+
+    /**
+     * 分片表名模板，{shard} 替换为分片序号；分库时写成 库名模板.表名，如 seckill_{shard}.tb_seckill_order
+     */
+    @Value("${seckill.order.sharding.table-pattern:tb_seckill_order_{shard}}")
+    private String tablePattern;
+
+    /**
+     * 启动时按 tb_seckill_order 的结构创建缺失的分片表
+     */
+    @Value("${seckill.order.sharding.create-tables:true}")
+    private boolean createTables;
+
+    private List<String> tables;
+
+    @PostConstruct
+    public void init() {
+        if (shards < 1 || OrderNoGenerator.SLOT_COUNT % shards != 0) {
+            throw new IllegalStateException("seckill.order.sharding.shards 必须是 "
+                    + OrderNoGenerator.SLOT_COUNT + " 的约数");
+        }
+        List<String> names = new ArrayList<>(shards);
+        for (int shard = 0; shard < shards; shard++) {
+            names.add(shards == 1 ? LOGICAL_TABLE : tablePattern.replace("{shard}", String.valueOf(shard)));
+        }
+        tables = Collections.unmodifiableList(names);
+
+        if (isEnabled() && createTables) {
+            dataSourceRouter.onPrimary(() -> {
+                for (String table : tables) {
+                    jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + table + " LIKE " + LOGICAL_TABLE);
+                }
+            });
+            logger.info("订单表按用户ID分为 {} 个分片: {}", shards, tables);
+        }
+    }
+
+    public boolean isEnabled() {
+        return shards > 1;
+    }
+
+    public int getShards() {
+        return shards;
+    }
+
+    /**
+     * 用户所在的分片
+     */
+    public int shardOf(Long userId) {
+        return (int) ((userId & (OrderNoGenerator.SLOT_COUNT - 1)) % shards);
+    }
+
+    /**
+     * 订单号所在的分片，非Snowflake订单号（早期的UUID订单号）返回-1
+     */
+    public int shardOfOrderNo(String orderNo) {
+        int slot = OrderNoGenerator.parseSlot(orderNo);
+        return slot < 0 ? -1 : slot % shards;
+    }
+
+    public String table(int shard) {
+        return tables.get(shard);
+    }
+
+    public List<String> tables() {
+        return tables;
+    }
+
+    /**
+     * 在指定分片上执行，期间通过Hibernate执行的订单SQL都指向该分片
+     */
+    public <T> T withShard(int shard, Supplier<T> action) {
+        String previous = CURRENT_TABLE.get();
+        CURRENT_TABLE.set(table(shard));
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                CURRENT_TABLE.remove();
+            } else {
+                CURRENT_TABLE.set(previous);
+            }
+        }
+    }
+
+    public void withShard(int shard, Runnable action) {
+        withShard(shard, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * 当前线程的分片表名，不在 {@link #withShard} 范围内时返回null
+     */
+    public static String currentTable() {
+        return CURRENT_TABLE.get();
+    }
+}
\ No newline at end of file
@@ -1,9 +1,11 @@
 package com.example.service;
 
+import com.example.cache.CacheAside;
+import com.example.cache.IdFilter;
+import com.example.cache.TwoLevelCache;
 import com.example.entity.Product;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
-import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -21,38 +23,34 @@ public class ProductService {
     private EntityManager entityManager;
 
     @Autowired
-    private RedisTemplate<String, Object> redisTemplate;
+    private TwoLevelCache twoLevelCache;
+
+    @Autowired
+    private CacheAside cacheAside;
+
+    @Autowired
+    private IdFilter idFilter;
 
     /**
      * 获取所有商品
      */
     public List<Product> getAllProducts() {
         String cacheKey = "products:all";
-        List<Product> products = (List<Product>) redisTemplate.opsForValue().get(cacheKey);
-
-        if (products == null) {
-            products = entityManager.createQuery("SELECT p FROM Product p WHERE p.status = 1", Product.class).getResultList();
-            redisTemplate.opsForValue().set(cacheKey, products, 30, TimeUnit.MINUTES);
-        }
-
-        return products;
+        return cacheAside.get(cacheKey, 30, TimeUnit.MINUTES,
+                () -> entityManager.createQuery("SELECT p FROM Product p WHERE p.status = 1", Product.class).getResultList());
     }
 
     /**
      * 根据ID获取商品
      */
     public Product getProductById(Long id) {
-        String cacheKey = "product:" + id;
-        Product product = (Product) redisTemplate.opsForValue().get(cacheKey);
-
-        if (product == null) {
-            product = entityManager.find(Product.class, id);
-            if (product != null) {
-                redisTemplate.opsForValue().set(cacheKey, product, 30, TimeUnit.MINUTES);
-            }
+        // 不可能存在的ID直接返回，不访问Redis和数据库
+        if (!idFilter.mightExist(IdFilter.IdType.PRODUCT, id)) {
+            return null;
         }
-
-        return product;
+        String cacheKey = "product:" + id;
+        return cacheAside.getTwoLevel(cacheKey, 30, TimeUnit.MINUTES,
+                () -> entityManager.find(Product.class, id));
     }
 
     /**
@@ -62,8 +60,9 @@ public class ProductService {
     public boolean addProduct(Product product) {
         try {
             entityManager.persist(product);
-            // 清除缓存
-            redisTemplate.delete("products:all");
+            idFilter.add(IdFilter.IdType.PRODUCT, product.getId());
+            // 清除缓存（包括可能存在的空值标记）
+            twoLevelCache.evict("products:all", "product:" + product.getId());
             return true;
         } catch (Exception e) {
             return false;
@@ -78,8 +77,7 @@ public class ProductService {
         try {
             entityManager.merge(product);
             // 清除相关缓存
-            redisTemplate.delete("product:" + product.getId());
-            redisTemplate.delete("products:all");
+            twoLevelCache.evict("product:" + product.getId(), "products:all");
             return true;
         } catch (Exception e) {
             return false;
@@ -96,8 +94,7 @@ public class ProductService {
             if (product != null) {
                 entityManager.remove(product);
                 // 清除相关缓存
-                redisTemplate.delete("product:" + id);
-                redisTemplate.delete("products:all");
+                twoLevelCache.evict("product:" + id, "products:all");
                 return true;
             }
             return false;
@@ -0,0 +1,152 @@
+package com.example.service;
+
+import com.example.cache.UserRegistry;
+import com.example.common.SeckillStatus;
+import com.example.dto.SeckillResult;
+import com.example.entity.SeckillProduct;
+import com.example.metrics.SeckillMetrics;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 非阻塞秒杀服务类
+ * 售罄判断、准入限流和库存预扣在Lettuce事件循环线程上完成，不占用请求线程；
+ * 只有会阻塞的步骤（本地缓存未命中时的商品查询、用户ID位图无法确定时的用户查询、订单落库或入队）交给有界的持久化线程池执行
+ */
+@Service
+public class ReactiveSeckillService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveSeckillService.class);
+
+    @Autowired
+    private SeckillService seckillService;
+
+    @Autowired
+    private SeckillStockService stockService;
+
+    @Autowired
+    private SeckillRateLimiter rateLimiter;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRegistry userRegistry;
+
+    @Autowired
+    private SeckillMetrics metrics;
+
+    @Autowired
+    @Qualifier("seckillPersistenceScheduler")
+    private Scheduler persistenceScheduler;
+
+    /**
+     * 执行秒杀，返回结果与 {@link SeckillService#doSeckill} 一致，
+     * 准入限流拒绝时返回 {@link SeckillStatus#BUSY}
+     *
+     * @param authenticated 用户ID来自已校验的会话令牌，不再检查用户是否存在
+     */
+    public Mono<SeckillResult> doSeckill(Long userId, Long seckillId, boolean authenticated) {
+        // 本地售罄标记，命中时不产生任何I/O
+        if (stockService.isSoldOut(seckillId)) {
+            return Mono.just(SeckillResult.of(SeckillStatus.SOLD_OUT));
+        }
+
+        return getSeckillProduct(seckillId)
+                .flatMap(seckillProduct -> {
+                    if (seckillProduct.getStatus() != 1) {
+                        return Mono.just(SeckillResult.of(SeckillStatus.NOT_FOUND));
+                    }
+                    if (!rateLimiter.tryAcquire(seckillId, seckillProduct.getStockCount())) {
+                        return Mono.just(SeckillResult.of(SeckillStatus.BUSY));
+                    }
+                    if (authenticated) {
+                        return reserve(userId, seckillProduct);
+                    }
+                    return checkUser(userId)
+                            .flatMap(exists -> exists
+                                    ? reserve(userId, seckillProduct)
+                                    : Mono.just(SeckillResult.of(SeckillStatus.USER_NOT_FOUND)));
+                })
+                .defaultIfEmpty(SeckillResult.of(SeckillStatus.NOT_FOUND));
+    }
+
+    /**
+     * 检查用户是否存在，本地用户ID位图能确定时直接返回，否则到持久化线程池中查询
+     */
+    private Mono<Boolean> checkUser(Long userId) {
+        Boolean known = userRegistry.exists(userId);
+        if (known != null) {
+            return Mono.just(known);
+        }
+        return Mono.fromCallable(() -> metrics.phase(SeckillMetrics.PHASE_USER_LOOKUP,
+                        () -> userService.exists(userId)))
+                .subscribeOn(persistenceScheduler);
+    }
+
+    private Mono<SeckillResult> reserve(Long userId, SeckillProduct seckillProduct) {
+        LocalDateTime now = LocalDateTime.now();
+        Timer.Sample sample = metrics.start();
+        return stockService.reserveReactive(userId, seckillProduct, now)
+                .doOnNext(reservation -> sample.stop(metrics.phaseTimer(SeckillMetrics.PHASE_STOCK_RESERVE)))
+                .flatMap(reservation -> {
+                    if (!reservation.isSuccess()) {
+                        return Mono.just(SeckillResult.of(reservation.getStatus()));
+                    }
+                    return createOrder(userId, seckillProduct, now, reservation.getShard());
+                });
+    }
+
+    /**
+     * 在持久化线程池中创建订单，订单落库（或入队）会阻塞，不能在事件循环线程上执行
+     * 线程池拒绝任务、任务开始前出错或被取消时，createOrder不会执行，必须回补已预扣的库存：
+     * started 保证创建订单和回补库存只有一个会发生
+     */
+    private Mono<SeckillResult> createOrder(Long userId, SeckillProduct seckillProduct, LocalDateTime now, int shard) {
+        AtomicBoolean started = new AtomicBoolean();
+        return Mono.fromCallable(() -> started.compareAndSet(false, true)
+                        ? seckillService.createOrder(userId, seckillProduct, now, shard)
+                        : SeckillResult.of(SeckillStatus.BUSY))
+                .subscribeOn(persistenceScheduler)
+                .onErrorResume(e -> {
+                    if (!started.compareAndSet(false, true)) {
+                        // createOrder已执行，失败时已由其回补库存
+                        return Mono.error(e);
+                    }
+                    logger.warn("下单任务未能执行，回补库存，用户ID: {}，秒杀ID: {}", userId, seckillProduct.getId(), e);
+                    // 回补库存会访问Redis，放到弹性线程池执行
+                    return Mono.fromCallable(() -> {
+                        stockService.release(userId, seckillProduct, shard);
+                        return SeckillResult.of(SeckillStatus.BUSY);
+                    }).subscribeOn(Schedulers.boundedElastic());
+                })
+                .doOnCancel(() -> {
+                    if (started.compareAndSet(false, true)) {
+                        Schedulers.boundedElastic().schedule(() -> stockService.release(userId, seckillProduct, shard));
+                    }
+                });
+    }
+
+    /**
+     * 获取秒杀商品，本地缓存命中时直接返回，否则到持久化线程池中查询Redis/数据库
+     */
+    private Mono<SeckillProduct> getSeckillProduct(Long seckillId) {
+        SeckillProduct seckillProduct = seckillService.getLocalSeckillProduct(seckillId);
+        if (seckillProduct != null) {
+            return Mono.just(seckillProduct);
+        }
+        return Mono.fromCallable(() -> metrics.phase(SeckillMetrics.PHASE_ACTIVITY_FETCH,
+                        () -> seckillService.getSeckillProductById(seckillId)))
+                .subscribeOn(persistenceScheduler);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,229 @@
+package com.example.service;
+
+import com.example.entity.SeckillOrder;
+import com.example.metrics.SeckillMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 异步下单队列
+ * Redis预扣库存成功后订单进入有界队列，由消费者线程批量落库，
+ * 将秒杀瞬时流量与数据库写入速度解耦
+ */
+@Component
+public class SeckillOrderQueue {
+
+    private static final Logger logger = LoggerFactory.getLogger(SeckillOrderQueue.class);
+
+    public static final String TICKET_QUEUED = "QUEUED";
+    public static final String TICKET_SUCCESS = "SUCCESS";
+    public static final String TICKET_FAILED = "FAILED";
+
+    private static final long TICKET_TTL_SECONDS = 30 * 60;
+
+    private static final int TICKET_MARK_ATTEMPTS = 3;
+
+    @Autowired
+    private SeckillOrderWriter orderWriter;
+
+    @Autowired
+    private SeckillStockService stockService;
+
+    @Autowired
+    private SeckillMetrics metrics;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    @Qualifier("seckillOrderExecutor")
+    private TaskExecutor orderExecutor;
+
+    @Value("${seckill.order.async:false}")
+    private boolean async;
+
+    @Value("${seckill.order.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${seckill.order.batch-size:100}")
+    private int batchSize;
+
+    @Value("${seckill.order.consumers:4}")
+    private int consumers;
+
+    private BlockingQueue<SeckillOrderTask> queue;
+
+    private CountDownLatch stopped;
+
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() {
+        if (!async) {
+            return;
+        }
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        stopped = new CountDownLatch(consumers);
+        running = true;
+        for (int i = 0; i < consumers; i++) {
+            orderExecutor.execute(this::consume);
+        }
+        logger.info("异步下单队列已启动，容量: {}，消费者: {}，批量大小: {}", queueCapacity, consumers, batchSize);
+    }
+
+    /**
+     * 停止接收新订单，等待消费者处理完队列中剩余的订单
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (!running) {
+            return;
+        }
+        running = false;
+        if (!stopped.await(30, TimeUnit.SECONDS)) {
+            logger.warn("异步下单队列关闭超时，剩余未处理订单: {}", queue.size());
+        }
+    }
+
+    /**
+     * 是否启用异步下单
+     */
+    public boolean isEnabled() {
+        return async;
+    }
+
+    /**
+     * 提交下单任务
+     * 队列已满时返回false，由调用方回补库存
+     */
+    public boolean submit(SeckillOrderTask task) {
+        if (!running) {
+            return false;
+        }
+        stringRedisTemplate.opsForValue().set(ticketKey(task.getTicket()), TICKET_QUEUED,
+                TICKET_TTL_SECONDS, TimeUnit.SECONDS);
+        if (!queue.offer(task)) {
+            stringRedisTemplate.delete(ticketKey(task.getTicket()));
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 查询下单结果
+     * 返回 QUEUED / SUCCESS / FAILED，凭证不存在或已过期时返回null
+     */
+    public String getTicketStatus(String ticket) {
+        return stringRedisTemplate.opsForValue().get(ticketKey(ticket));
+    }
+
+    private void consume() {
+        List<SeckillOrderTask> batch = new ArrayList<>(batchSize);
+        try {
+            while (running || !queue.isEmpty()) {
+                SeckillOrderTask first = queue.poll(200, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                write(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("异步下单消费者被中断");
+        } finally {
+            stopped.countDown();
+        }
+    }
+
+    /**
+     * 批量落库，整批失败时逐条重试，避免一条异常订单拖垮整批
+     * 只有落库失败才回补库存；订单已提交后更新凭证状态失败只记录日志，不能再回补库存，否则会超卖
+     */
+    private void write(List<SeckillOrderTask> batch) {
+        try {
+            metrics.phase(SeckillMetrics.PHASE_ORDER_PERSIST, () -> orderWriter.saveOrders(toOrders(batch)));
+        } catch (Exception e) {
+            logger.warn("批量写入订单失败，转为逐条写入，批量大小: {}", batch.size(), e);
+            for (SeckillOrderTask task : batch) {
+                writeOne(task);
+            }
+            return;
+        }
+        markTickets(batch, TICKET_SUCCESS);
+    }
+
+    private void writeOne(SeckillOrderTask task) {
+        try {
+            metrics.phase(SeckillMetrics.PHASE_ORDER_PERSIST,
+                    () -> orderWriter.saveOrders(List.of(task.getOrder())));
+        } catch (Exception e) {
+            logger.error("写入订单失败，订单号: {}", task.getTicket(), e);
+            stockService.release(task.getOrder().getUserId(), task.getSeckillProduct(), task.getShard());
+            markTickets(List.of(task), TICKET_FAILED);
+            return;
+        }
+        markTickets(List.of(task), TICKET_SUCCESS);
+    }
+
+    /**
+     * 更新凭证状态，Redis暂时不可用时短暂重试，仍失败则只记录日志，凭证保持排队状态直到过期
+     */
+    private void markTickets(List<SeckillOrderTask> tasks, String status) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                    StringRedisConnection conn = (StringRedisConnection) connection;
+                    for (SeckillOrderTask task : tasks) {
+                        conn.setEx(ticketKey(task.getTicket()), TICKET_TTL_SECONDS, status);
+                    }
+                    return null;
+                });
+                return;
+            } catch (RuntimeException e) {
+                if (attempt >= TICKET_MARK_ATTEMPTS) {
+                    logger.error("更新下单凭证状态失败，状态: {}，凭证数: {}，首个凭证: {}",
+                            status, tasks.size(), tasks.get(0).getTicket(), e);
+                    return;
+                }
+                try {
+                    Thread.sleep(100L * attempt);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private static List<SeckillOrder> toOrders(List<SeckillOrderTask> tasks) {
+        List<SeckillOrder> orders = new ArrayList<>(tasks.size());
+        for (SeckillOrderTask task : tasks) {
+            orders.add(task.getOrder());
+        }
+        return orders;
+    }
+
+    private static String ticketKey(String ticket) {
+        return "seckill:ticket:" + ticket;
+    }
+}
\ No newline at end of file
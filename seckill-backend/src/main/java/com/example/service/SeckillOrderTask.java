@@ -0,0 +1,42 @@
+package com.example.service;
+
+import com.example.entity.SeckillOrder;
+import com.example.entity.SeckillProduct;
+
+/**
+ * 异步下单任务
+ * 记录已在Redis预扣库存的订单，落库失败时据此回补库存
+ */
+public class SeckillOrderTask {
+
+    private final SeckillOrder order;
+
+    private final SeckillProduct seckillProduct;
+
+    /**
+     * 预扣库存的分片
+     */
+    private final int shard;
+
+    public SeckillOrderTask(SeckillOrder order, SeckillProduct seckillProduct, int shard) {
+        this.order = order;
+        this.seckillProduct = seckillProduct;
+        this.shard = shard;
+    }
+
+    public SeckillOrder getOrder() {
+        return order;
+    }
+
+    public SeckillProduct getSeckillProduct() {
+        return seckillProduct;
+    }
+
+    public int getShard() {
+        return shard;
+    }
+
+    public String getTicket() {
+        return order.getOrderNo();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,76 @@
+package com.example.service;
+
+import com.example.cache.UserOrderCache;
+import com.example.entity.SeckillOrder;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 秒杀订单落库服务
+ * 同步下单和异步队列消费者共用，一个事务内写入一批订单
+ */
+@Service
+public class SeckillOrderWriter {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private StockFlusher stockFlusher;
+
+    @Autowired
+    private SegmentIdAllocator idAllocator;
+
+    @Autowired
+    private UserOrderCache userOrderCache;
+
+    @Autowired
+    private OrderShardRouter shardRouter;
+
+    /**
+     * 批量保存订单
+     * 主键由号段分配器预先生成，Hibernate可以将整批订单合并为JDBC批量插入；
+     * 库存扣减不在这里更新商品行，而是记录到StockFlusher，由其按周期合并成一次UPDATE；
+     * 订单分片时按分片分组，每组写入后立即flush，使INSERT在该分片的路由范围内生成
+     */
+    @Transactional
+    public void saveOrders(List<SeckillOrder> orders) {
+        // 写入订单，同时按活动汇总扣减数量
+        Map<Long, Integer> decrements = new LinkedHashMap<>();
+        Map<Long, Long> productIds = new LinkedHashMap<>();
+        Map<Integer, List<SeckillOrder>> shards = new LinkedHashMap<>();
+        for (SeckillOrder order : orders) {
+            if (order.getId() == null) {
+                order.setId(idAllocator.nextId("seckill_order"));
+            }
+            order.setStockFlushed(0);
+            shards.computeIfAbsent(shardRouter.shardOf(order.getUserId()), shard -> new ArrayList<>()).add(order);
+            if (order.getSeckillId() != null) {
+                decrements.merge(order.getSeckillId(), 1, Integer::sum);
+                productIds.put(order.getSeckillId(), order.getProductId());
+            }
+        }
+        for (Map.Entry<Integer, List<SeckillOrder>> entry : shards.entrySet()) {
+            shardRouter.withShard(entry.getKey(), () -> {
+                for (SeckillOrder order : entry.getValue()) {
+                    entityManager.persist(order);
+                }
+                entityManager.flush();
+            });
+        }
+
+        for (Map.Entry<Long, Integer> entry : decrements.entrySet()) {
+            stockFlusher.record(entry.getKey(), productIds.get(entry.getKey()), entry.getValue());
+        }
+        // 提交后追加到用户订单缓存
+        userOrderCache.append(orders);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,99 @@
+package com.example.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 秒杀准入限流
+ * 每个秒杀活动一个令牌桶，每秒生成的令牌数为活动库存乘以放大倍数，
+ * 超出部分的请求在进入Redis和数据库之前直接拒绝。
+ * 令牌桶基于本地原子变量实现，不加锁、不访问网络
+ */
+@Component
+public class SeckillRateLimiter {
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    @Value("${seckill.rate-limit.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 每秒放行的请求数 = 库存 × 倍数
+     */
+    @Value("${seckill.rate-limit.stock-multiplier:3}")
+    private double stockMultiplier;
+
+    /**
+     * 每秒放行请求数的下限，避免库存很少的活动几乎无法进入
+     */
+    @Value("${seckill.rate-limit.min-permits-per-second:50}")
+    private long minPermitsPerSecond;
+
+    private final ConcurrentMap<Long, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+    /**
+     * 尝试获取一个令牌
+     */
+    public boolean tryAcquire(Long seckillId, int stockCount) {
+        if (!enabled) {
+            return true;
+        }
+        long permitsPerSecond = Math.max((long) (stockCount * stockMultiplier), minPermitsPerSecond);
+        TokenBucket bucket = buckets.computeIfAbsent(seckillId, id -> new TokenBucket(permitsPerSecond));
+        if (bucket.permitsPerSecond != permitsPerSecond) {
+            // 库存变化（重新预热、缓存刷新）时只调整速率，不重建令牌桶，已消耗的突发量不会被重置
+            bucket.permitsPerSecond = permitsPerSecond;
+        }
+        return bucket.tryAcquire();
+    }
+
+    /**
+     * 令牌桶，容量为一秒的令牌数
+     * 用“理论到达时间”(GCRA)表示桶的状态，一次CAS即可完成补充令牌和扣减令牌
+     */
+    private static final class TokenBucket {
+
+        /**
+         * 每秒生成的令牌数，可以在使用过程中调整
+         */
+        private volatile long permitsPerSecond;
+
+        /**
+         * 桶容量对应的纳秒数（允许的突发量）
+         */
+        private final long burst;
+
+        /**
+         * 下一个令牌的理论可用时间
+         */
+        private final AtomicLong nextFreeTime;
+
+        private TokenBucket(long permitsPerSecond) {
+            this.permitsPerSecond = permitsPerSecond;
+            this.burst = NANOS_PER_SECOND;
+            this.nextFreeTime = new AtomicLong(System.nanoTime() - burst);
+        }
+
+        private boolean tryAcquire() {
+            long now = System.nanoTime();
+            // 每个令牌对应的纳秒数
+            long interval = Math.max(NANOS_PER_SECOND / permitsPerSecond, 1);
+            while (true) {
+                long next = nextFreeTime.get();
+                // 桶是满的：从当前时间往前回溯一个桶容量
+                long start = Math.max(next, now - burst);
+                long newNext = start + interval;
+                if (newNext - now > 0) {
+                    return false;
+                }
+                if (nextFreeTime.compareAndSet(next, newNext)) {
+                    return true;
+                }
+            }
+        }
+    }
+}
\ No newline at end of file
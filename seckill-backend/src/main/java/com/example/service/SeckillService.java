@@ -1,18 +1,30 @@
 package com.example.service;
 
+import com.example.cache.CacheAside;
+import com.example.cache.IdFilter;
+import com.example.cache.TwoLevelCache;
+import com.example.cache.UserOrderCache;
+import com.example.common.SeckillStatus;
+import com.example.dto.OrderCursor;
+import com.example.dto.OrderPage;
+import com.example.dto.SeckillResult;
 import com.example.entity.SeckillOrder;
 import com.example.entity.SeckillProduct;
-import com.example.entity.Product;
+import com.example.exception.BusinessException;
+import com.example.metrics.SeckillMetrics;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
-import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -21,143 +33,182 @@ import java.util.concurrent.TimeUnit;
 @Service
 public class SeckillService {
 
+    private static final Logger logger = LoggerFactory.getLogger(SeckillService.class);
+
     @PersistenceContext
     private EntityManager entityManager;
 
     @Autowired
     private RedisTemplate<String, Object> redisTemplate;
 
+    @Autowired
+    private TwoLevelCache twoLevelCache;
+
+    @Autowired
+    private CacheAside cacheAside;
+
+    @Autowired
+    private IdFilter idFilter;
+
+    @Autowired
+    private UserOrderCache userOrderCache;
+
+    @Autowired
+    private OrderShardRouter shardRouter;
+
+    @Autowired
+    private DataSourceRouter dataSourceRouter;
+
+    @Autowired
+    private SeckillStockService stockService;
+
+    @Autowired
+    private StockFlusher stockFlusher;
+
+    @Autowired
+    private SeckillOrderWriter orderWriter;
+
+    @Autowired
+    private SeckillOrderQueue orderQueue;
+
+    @Autowired
+    private OrderNoGenerator orderNoGenerator;
+
+    @Autowired
+    private SeckillRateLimiter rateLimiter;
+
+    @Autowired
+    private SeckillMetrics metrics;
+
     /**
      * 获取所有秒杀商品
      */
     public List<SeckillProduct> getAllSeckillProducts() {
         String cacheKey = "seckill:products:all";
-        List<SeckillProduct> products = (List<SeckillProduct>) redisTemplate.opsForValue().get(cacheKey);
-
-        if (products == null) {
+        return cacheAside.getTwoLevel(cacheKey, 5, TimeUnit.MINUTES, () -> {
             LocalDateTime now = LocalDateTime.now();
-            products = entityManager.createQuery(
+            return entityManager.createQuery(
                 "SELECT sp FROM SeckillProduct sp WHERE sp.status = 1 AND sp.endTime >= :now",
                 SeckillProduct.class)
                 .setParameter("now", now)
                 .getResultList();
-            redisTemplate.opsForValue().set(cacheKey, products, 5, TimeUnit.MINUTES);
-        }
+        });
+    }
 
-        return products;
+    /**
+     * 从本地缓存获取秒杀商品，不访问Redis和数据库，未命中返回null
+     */
+    public SeckillProduct getLocalSeckillProduct(Long id) {
+        return twoLevelCache.getLocal("seckill:product:" + id);
     }
 
     /**
      * 根据ID获取秒杀商品
      */
     public SeckillProduct getSeckillProductById(Long id) {
-        String cacheKey = "seckill:product:" + id;
-        SeckillProduct product = (SeckillProduct) redisTemplate.opsForValue().get(cacheKey);
-
-        if (product == null) {
-            product = entityManager.find(SeckillProduct.class, id);
-            if (product != null) {
-                redisTemplate.opsForValue().set(cacheKey, product, 30, TimeUnit.MINUTES);
-            }
+        // 不可能存在的ID直接返回，不访问Redis和数据库
+        if (!idFilter.mightExist(IdFilter.IdType.SECKILL, id)) {
+            return null;
         }
-
-        return product;
+        String cacheKey = "seckill:product:" + id;
+        return cacheAside.getTwoLevel(cacheKey, 30, TimeUnit.MINUTES,
+                () -> entityManager.find(SeckillProduct.class, id));
     }
 
     /**
-     * 预热秒杀库存到Redis
+     * 预热秒杀库存到Redis，库存从主库读取
+     * 数据库库存由StockFlusher批量扣减，预热时减去已落库但尚未同步的订单。
+     * 进行中的活动以Redis中的剩余库存为准，重新预热需要指定force：排队中尚未落库的订单无法计入，可能多放出这部分库存
      */
-    public void preloadSeckillStock(Long seckillId) {
-        SeckillProduct seckillProduct = entityManager.find(SeckillProduct.class, seckillId);
-        if (seckillProduct != null && seckillProduct.getStatus() == 1) {
-            String stockKey = "seckill:stock:" + seckillId;
-            redisTemplate.opsForValue().set(stockKey, seckillProduct.getStockCount());
-
-            // 设置过期时间为活动结束时间
-            long ttl = java.time.Duration.between(LocalDateTime.now(), seckillProduct.getEndTime()).getSeconds();
-            if (ttl > 0) {
-                redisTemplate.expire(stockKey, ttl, TimeUnit.SECONDS);
-            }
+    public void preloadSeckillStock(Long seckillId, boolean force) {
+        // 先统计未同步的订单再读取库存，两次读取之间发生同步时只会少算库存，不会多放
+        int unflushed = stockFlusher.unflushedCount(seckillId);
+        SeckillProduct seckillProduct = dataSourceRouter.onPrimary(() -> entityManager.find(SeckillProduct.class, seckillId));
+        if (seckillProduct == null || seckillProduct.getStatus() != 1) {
+            return;
         }
+        LocalDateTime now = LocalDateTime.now();
+        if (!force && !now.isBefore(seckillProduct.getStartTime()) && now.isBefore(seckillProduct.getEndTime())) {
+            throw new BusinessException("秒杀活动进行中，重新预热会覆盖Redis中的剩余库存");
+        }
+        stockService.preloadStock(seckillProduct, Math.max(seckillProduct.getStockCount() - unflushed, 0));
     }
 
     /**
      * 执行秒杀
+     * Redis预扣库存成功后，同步模式直接创建订单；异步模式将订单放入下单队列并返回排队凭证
      */
-    @Transactional
-    public boolean doSeckill(Long userId, Long seckillId) {
-        // 1. 检查用户是否已经购买过
-        String userKey = "user:" + userId + ":seckill:" + seckillId;
-        if (redisTemplate.hasKey(userKey)) {
-            return false; // 已经购买过
+    public SeckillResult doSeckill(Long userId, Long seckillId) {
+        // 0. 本地售罄标记，命中时不产生任何网络I/O
+        if (stockService.isSoldOut(seckillId)) {
+            return SeckillResult.of(SeckillStatus.SOLD_OUT);
         }
 
-        // 2. 检查秒杀活动是否存在且有效
-        SeckillProduct seckillProduct = getSeckillProductById(seckillId);
+        // 1. 检查秒杀活动是否存在且有效
+        SeckillProduct seckillProduct = metrics.phase(SeckillMetrics.PHASE_ACTIVITY_FETCH,
+                () -> getSeckillProductById(seckillId));
         if (seckillProduct == null || seckillProduct.getStatus() != 1) {
-            return false; // 活动不存在或已结束
+            return SeckillResult.of(SeckillStatus.NOT_FOUND); // 活动不存在或已结束
         }
 
+        // 2. 预扣库存：检查重复购买、活动时间、库存，扣减库存并标记用户
         LocalDateTime now = LocalDateTime.now();
-        if (now.isBefore(seckillProduct.getStartTime()) || now.isAfter(seckillProduct.getEndTime())) {
-            return false; // 活动未开始或已结束
+        StockReservation reservation = metrics.phase(SeckillMetrics.PHASE_STOCK_RESERVE,
+                () -> stockService.reserve(userId, seckillProduct, now));
+        if (!reservation.isSuccess()) {
+            return SeckillResult.of(reservation.getStatus());
         }
 
-        // 3. 原子扣减Redis库存
-        String stockKey = "seckill:stock:" + seckillId;
-        Long stock = redisTemplate.opsForValue().decrement(stockKey);
-
-        if (stock < 0) {
-            // 库存不足，回滚
-            redisTemplate.opsForValue().increment(stockKey);
-            return false;
-        }
+        return createOrder(userId, seckillProduct, now, reservation.getShard());
+    }
 
-        // 4. 创建订单
-        String orderNo = UUID.randomUUID().toString();
+    /**
+     * 预扣库存成功后创建订单
+     * 同步模式直接落库，异步模式放入下单队列；失败时回补库存
+     *
+     * @param shard 预扣库存的分片
+     */
+    SeckillResult createOrder(Long userId, SeckillProduct seckillProduct, LocalDateTime now, int shard) {
+        // 3. 创建订单
+        String orderNo = orderNoGenerator.nextOrderNo(userId);
         SeckillOrder order = new SeckillOrder();
         order.setOrderNo(orderNo);
         order.setUserId(userId);
         order.setProductId(seckillProduct.getProductId());
+        order.setSeckillId(seckillProduct.getId());
         order.setSeckillPrice(seckillProduct.getSeckillPrice());
-        order.setCreateTime(now);
+        order.setStatus(0);
+        // 与数据库DATETIME精度一致，缓存和数据库中订单的分页游标相同
+        order.setCreateTime(now.truncatedTo(ChronoUnit.SECONDS));
+
+        // 4. 异步模式：放入下单队列，队列已满时回补库存
+        if (orderQueue.isEnabled()) {
+            if (metrics.phase(SeckillMetrics.PHASE_ORDER_ENQUEUE,
+                    () -> orderQueue.submit(new SeckillOrderTask(order, seckillProduct, shard)))) {
+                return SeckillResult.of(SeckillStatus.QUEUED, orderNo);
+            }
+            stockService.release(userId, seckillProduct, shard);
+            return SeckillResult.of(SeckillStatus.BUSY);
+        }
 
+        // 5. 同步模式：直接落库，数据库库存由StockFlusher批量扣减
         try {
-            entityManager.persist(order);
-            if (order.getId() != null) {
-                // 5. 扣减商品库存
-                Product product = entityManager.find(Product.class, seckillProduct.getProductId());
-                if (product != null && product.getStockCount() > 0) {
-                    product.setStockCount(product.getStockCount() - 1);
-                    entityManager.merge(product);
-
-                    // 清除商品缓存
-                    redisTemplate.delete("product:" + product.getId());
-                    redisTemplate.delete("products:all");
-                }
-
-                // 6. 标记用户已购买
-                redisTemplate.opsForValue().set(userKey, "1");
-
-                // 设置过期时间为活动结束时间
-                long ttl = java.time.Duration.between(now, seckillProduct.getEndTime()).getSeconds();
-                if (ttl > 0) {
-                    redisTemplate.expire(userKey, ttl, TimeUnit.SECONDS);
-                }
-
-                return true;
-            } else {
-                // 订单创建失败，回滚库存
-                redisTemplate.opsForValue().increment(stockKey);
-                return false;
-            }
+            metrics.phase(SeckillMetrics.PHASE_ORDER_PERSIST, () -> orderWriter.saveOrders(List.of(order)));
+            return SeckillResult.of(SeckillStatus.SUCCESS, orderNo);
         } catch (Exception e) {
-            // 异常情况，回滚库存
-            redisTemplate.opsForValue().increment(stockKey);
+            // 异常情况，回滚库存和购买标记
+            stockService.release(userId, seckillProduct, shard);
             throw e;
         }
     }
 
+    /**
+     * 查询异步下单结果
+     */
+    public String getSeckillResult(String ticket) {
+        return orderQueue.getTicketStatus(ticket);
+    }
+
     /**
      * 添加秒杀商品
      */
@@ -173,16 +224,16 @@ public class SeckillService {
             entityManager.flush(); // 强制刷新以获取ID
 
             if (seckillProduct.getId() != null && seckillProduct.getId() > 0) {
-                // 清除缓存并预热库存
-                redisTemplate.delete("seckill:products:all");
-                preloadSeckillStock(seckillProduct.getId());
+                // 登记ID，清除缓存（包括可能存在的空值标记）并预热库存
+                idFilter.add(IdFilter.IdType.SECKILL, seckillProduct.getId());
+                twoLevelCache.evict("seckill:products:all", "seckill:product:" + seckillProduct.getId());
+                // 新增的活动还没有订单
+                preloadSeckillStock(seckillProduct.getId(), true);
                 return true;
             }
             return false;
         } catch (Exception e) {
-            // 记录错误信息（在实际项目中应该使用日志框架）
-            System.err.println("添加秒杀商品失败: " + e.getMessage());
-            e.printStackTrace();
+            logger.error("添加秒杀商品失败", e);
             throw new RuntimeException("添加秒杀商品失败: " + e.getMessage(), e);
         }
     }
@@ -191,50 +242,99 @@ public class SeckillService {
      * 检查用户是否已购买该秒杀商品
      */
     public boolean hasUserPurchased(Long userId, Long seckillId) {
-        String userKey = "user:" + userId + ":seckill:" + seckillId;
-        return redisTemplate.hasKey(userKey);
+        SeckillProduct seckillProduct = getSeckillProductById(seckillId);
+        return seckillProduct != null && stockService.hasPurchased(userId, seckillProduct);
     }
 
     /**
-     * 获取用户的秒杀订单列表
+     * 秒杀准入：按活动库存限制每秒进入秒杀流程的请求数
+     * 活动不存在时放行，由doSeckill返回相应结果
      */
-    public List<SeckillOrder> getUserOrders(Long userId) {
-        String cacheKey = "user:orders:" + userId;
-        List<SeckillOrder> orders = (List<SeckillOrder>) redisTemplate.opsForValue().get(cacheKey);
+    public boolean tryAdmit(Long seckillId) {
+        SeckillProduct seckillProduct = getSeckillProductById(seckillId);
+        return seckillProduct == null || rateLimiter.tryAcquire(seckillId, seckillProduct.getStockCount());
+    }
 
-        if (orders == null) {
-            orders = entityManager.createQuery(
-                "SELECT so FROM SeckillOrder so WHERE so.userId = :userId ORDER BY so.createTime DESC",
-                SeckillOrder.class)
-                .setParameter("userId", userId)
-                .getResultList();
+    /**
+     * 活动是否已售罄（本地标记）
+     */
+    public boolean isSoldOut(Long seckillId) {
+        return stockService.isSoldOut(seckillId);
+    }
 
-            redisTemplate.opsForValue().set(cacheKey, orders, 10, TimeUnit.MINUTES);
+    /**
+     * 按游标分页获取用户的秒杀订单，按创建时间倒序
+     * 最近的订单从用户订单缓存中读取，超出缓存范围的页按 (create_time, id) 在索引 idx_user_time 上查询，
+     * 用户的订单都在同一个分片中。
+     * 写入缓存的最近订单从主库读取（只读库可能缺少刚提交的订单，缓存之后只追加新订单，缺失的订单会一直缺失），
+     * 更早的页从只读库读取
+     */
+    public OrderPage getUserOrders(Long userId, OrderCursor cursor, int limit) {
+        // 多取一条判断是否还有下一页
+        List<SeckillOrder> orders = userOrderCache.page(userId, cursor, limit + 1,
+                () -> dataSourceRouter.onPrimary(() -> queryUserOrders(userId, null, userOrderCache.getCacheSize())));
+        if (orders == null) {
+            orders = queryUserOrders(userId, cursor, limit + 1);
         }
+        return OrderPage.of(orders, limit);
+    }
 
-        return orders;
+    private List<SeckillOrder> queryUserOrders(Long userId, OrderCursor cursor, int limit) {
+        String jpql = "SELECT so FROM SeckillOrder so WHERE so.userId = :userId"
+                + (cursor == null ? "" : " AND (so.createTime < :createTime OR (so.createTime = :createTime AND so.id < :id))")
+                + " ORDER BY so.createTime DESC, so.id DESC";
+        TypedQuery<SeckillOrder> query = entityManager.createQuery(jpql, SeckillOrder.class)
+                .setParameter("userId", userId)
+                .setMaxResults(limit);
+        if (cursor != null) {
+            query.setParameter("createTime", cursor.getCreateTime())
+                    .setParameter("id", cursor.getId());
+        }
+        return shardRouter.withShard(shardRouter.shardOf(userId), () -> query.getResultList());
     }
 
     /**
      * 根据订单号获取订单详情
      */
     public SeckillOrder getOrderByNo(String orderNo) {
+        long timestamp = OrderNoGenerator.parseTimestamp(orderNo);
+        // 订单号中的时间戳明显晚于当前时间，说明是伪造的订单号，无需查询
+        if (timestamp > System.currentTimeMillis() + 60_000) {
+            return null;
+        }
+
         String cacheKey = "order:no:" + orderNo;
         SeckillOrder order = (SeckillOrder) redisTemplate.opsForValue().get(cacheKey);
 
         if (order == null) {
-            List<SeckillOrder> orders = entityManager.createQuery(
-                "SELECT so FROM SeckillOrder so WHERE so.orderNo = :orderNo",
-                SeckillOrder.class)
-                .setParameter("orderNo", orderNo)
-                .getResultList();
+            // 订单号低位带有用户分片，早期的UUID订单号无法解析时依次查询所有分片
+            int shard = shardRouter.shardOfOrderNo(orderNo);
+            if (shard >= 0) {
+                order = findOrderByNo(shard, orderNo);
+            } else {
+                for (int i = 0; i < shardRouter.getShards() && order == null; i++) {
+                    order = findOrderByNo(i, orderNo);
+                }
+            }
+            // 刚创建的订单可能还没有复制到只读库，到主库再查一次
+            if (order == null && shard >= 0 && dataSourceRouter.isWithinLag(timestamp)) {
+                order = dataSourceRouter.onPrimary(() -> findOrderByNo(shard, orderNo));
+            }
 
-            if (!orders.isEmpty()) {
-                order = orders.get(0);
+            if (order != null) {
                 redisTemplate.opsForValue().set(cacheKey, order, 30, TimeUnit.MINUTES);
             }
         }
 
         return order;
     }
+
+    private SeckillOrder findOrderByNo(int shard, String orderNo) {
+        List<SeckillOrder> orders = shardRouter.withShard(shard, () -> entityManager.createQuery(
+                "SELECT so FROM SeckillOrder so WHERE so.orderNo = :orderNo",
+                SeckillOrder.class)
+                .setParameter("orderNo", orderNo)
+                .getResultList());
+        return orders.isEmpty() ? null : orders.get(0);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,439 @@
+package com.example.service;
+
+import com.example.common.SeckillStatus;
+import com.example.entity.SeckillProduct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 秒杀库存服务类
+ * 负责Redis中秒杀库存的预热、预扣和回补。
+ * 热门活动的库存可以拆分为多个分片key，把单个热点key的压力分散开；
+ * 用户购买记录按分片保存在位图（或集合）中，而不是每个用户一个key。
+ * 同一分片的库存和购买记录使用相同的hash tag，每个脚本只访问同一个slot的key，可以在Redis Cluster上执行
+ */
+@Service
+public class SeckillStockService {
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private ReactiveStringRedisTemplate reactiveStringRedisTemplate;
+
+    @Autowired
+    private DefaultRedisScript<Long> seckillScript;
+
+    @Autowired
+    private DefaultRedisScript<Long> seckillStockScript;
+
+    @Autowired
+    private SoldOutRegistry soldOutRegistry;
+
+    @Value("${seckill.stock.shards:1}")
+    private int defaultShards;
+
+    /**
+     * 用位图记录购买用户时允许的最大用户ID，位图大小约为 最大ID/8 字节
+     */
+    @Value("${seckill.purchase.bitmap-max-user-id:67108863}")
+    private long bitmapMaxUserId;
+
+    /**
+     * 所属分片库存为空、已占用购买记录，需要到其他分片扣减库存
+     */
+    private static final long CLAIMED = 3;
+
+    /**
+     * 旧版key布局迁移时每个管道写入的购买记录数
+     */
+    private static final int MIGRATE_BATCH_SIZE = 10000;
+
+    /**
+     * 把旧版库存key的剩余库存移到当前key并设置过期时间，旧版实例此后在该分片上得到"库存未预热"，不会继续扣减。
+     * 当前key已存在时以当前key为准，只删除旧key。返回移走的库存，旧key不存在时返回-1
+     */
+    private static final DefaultRedisScript<Long> MOVE_STOCK_SCRIPT = new DefaultRedisScript<>(
+            "local stock = redis.call('get', KEYS[1])\n" +
+            "if not stock then return -1 end\n" +
+            "redis.call('del', KEYS[1])\n" +
+            "if redis.call('exists', KEYS[2]) == 1 then return 0 end\n" +
+            "redis.call('set', KEYS[2], stock)\n" +
+            "redis.call('pexpireat', KEYS[2], ARGV[1])\n" +
+            "return tonumber(stock)",
+            Long.class);
+
+    /**
+     * 本实例观察到已扣空的库存分片，仅用于调整尝试顺序
+     */
+    private final ConcurrentMap<String, Boolean> emptyShards = new ConcurrentHashMap<>();
+
+    /**
+     * 预热秒杀库存到Redis
+     * 库存按分片数平均拆分到多个key，以纯字符串写入，保证Lua脚本可以直接对其做数值运算；
+     * 重新预热会清除售罄标记
+     */
+    public void preloadStock(SeckillProduct seckillProduct) {
+        preloadStock(seckillProduct, seckillProduct.getStockCount());
+    }
+
+    /**
+     * 按指定的剩余库存预热
+     */
+    public void preloadStock(SeckillProduct seckillProduct, int stock) {
+        Long seckillId = seckillProduct.getId();
+        int shards = shardCount(seckillProduct);
+        // 设置过期时间为活动结束时间
+        long ttl = Duration.between(LocalDateTime.now(), seckillProduct.getEndTime()).getSeconds();
+
+        stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection conn = (StringRedisConnection) connection;
+            for (int shard = 0; shard < shards; shard++) {
+                // 余数分给前面的分片
+                int shardStock = stock / shards + (shard < stock % shards ? 1 : 0);
+                String stockKey = stockKey(seckillId, shard, shards);
+                conn.set(stockKey, String.valueOf(shardStock));
+                if (ttl > 0) {
+                    conn.expire(stockKey, ttl);
+                }
+            }
+            return null;
+        });
+
+        for (int shard = 0; shard < shards; shard++) {
+            emptyShards.remove(stockKey(seckillId, shard, shards));
+        }
+        soldOutRegistry.clear(seckillId);
+    }
+
+    /**
+     * 把旧版key布局中的库存和购买记录迁移到当前布局
+     * 旧版库存key为 seckill:stock:<id>[:<shard>]，购买记录不分片，保存在 seckill:buyers[:set]:<id>，位图偏移量为userId。
+     * 先复制购买记录，再逐个分片移走库存（旧版实例随即停止扣减），最后补复制这期间新增的购买记录并删除旧key；
+     * 补复制完成之前，已在旧版实例上购买的用户可能在新实例上再次购买成功。
+     * 旧版key不带hash tag，迁移脚本同时访问新旧key，只能在单机或主从Redis上执行
+     *
+     * @return 是否存在旧版库存
+     */
+    public boolean migrateLegacyKeys(SeckillProduct seckillProduct) {
+        Long seckillId = seckillProduct.getId();
+        int shards = shardCount(seckillProduct);
+        List<String> legacyStockKeys = new ArrayList<>(shards);
+        for (int shard = 0; shard < shards; shard++) {
+            legacyStockKeys.add(shards == 1 ? "seckill:stock:" + seckillId : "seckill:stock:" + seckillId + ":" + shard);
+        }
+        Long existing = stringRedisTemplate.countExistingKeys(legacyStockKeys);
+        if (existing == null || existing == 0) {
+            return false;
+        }
+
+        String endMillis = String.valueOf(toEpochMilli(seckillProduct.getEndTime()));
+        copyLegacyBuyers(seckillId, shards, endMillis);
+        for (int shard = 0; shard < shards; shard++) {
+            stringRedisTemplate.execute(MOVE_STOCK_SCRIPT,
+                    Arrays.asList(legacyStockKeys.get(shard), stockKey(seckillId, shard, shards)), endMillis);
+            emptyShards.remove(stockKey(seckillId, shard, shards));
+        }
+        copyLegacyBuyers(seckillId, shards, endMillis);
+        stringRedisTemplate.delete(Arrays.asList("seckill:buyers:" + seckillId, "seckill:buyers:set:" + seckillId));
+        soldOutRegistry.clear(seckillId);
+        return true;
+    }
+
+    /**
+     * 把旧版购买记录按用户所属分片写入当前的购买记录结构，重复写入没有影响
+     */
+    private void copyLegacyBuyers(Long seckillId, int shards, String endMillis) {
+        byte[] bitmap = stringRedisTemplate.execute((RedisCallback<byte[]>) connection ->
+                connection.stringCommands().get(("seckill:buyers:" + seckillId).getBytes(StandardCharsets.UTF_8)));
+        List<Long> bitmapBuyers = new ArrayList<>();
+        if (bitmap != null) {
+            // 位图偏移量n对应第n/8个字节中从高位数起的第n%8位
+            for (int i = 0; i < bitmap.length; i++) {
+                for (int bit = 0; bit < 8; bit++) {
+                    if ((bitmap[i] & (0x80 >>> bit)) != 0) {
+                        bitmapBuyers.add(i * 8L + bit);
+                    }
+                }
+            }
+        }
+        Set<String> setBuyers = stringRedisTemplate.opsForSet().members("seckill:buyers:set:" + seckillId);
+
+        for (int from = 0; from < bitmapBuyers.size(); from += MIGRATE_BATCH_SIZE) {
+            List<Long> batch = bitmapBuyers.subList(from, Math.min(from + MIGRATE_BATCH_SIZE, bitmapBuyers.size()));
+            stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection conn = (StringRedisConnection) connection;
+                for (Long userId : batch) {
+                    conn.setBit(buyersKey(seckillId, homeShard(userId, shards), shards, true), userId / shards, true);
+                }
+                return null;
+            });
+        }
+        stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection conn = (StringRedisConnection) connection;
+            if (setBuyers != null) {
+                for (String userId : setBuyers) {
+                    conn.sAdd(buyersKey(seckillId, homeShard(Long.valueOf(userId), shards), shards, false), userId);
+                }
+            }
+            // 与脚本一致，购买记录在活动结束时过期
+            long expireAt = Long.parseLong(endMillis);
+            for (int shard = 0; shard < shards; shard++) {
+                conn.pExpireAt(buyersKey(seckillId, shard, shards, true), expireAt);
+                conn.pExpireAt(buyersKey(seckillId, shard, shards, false), expireAt);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * 预扣库存
+     * 重复购买检查、活动时间检查、库存扣减和用户标记由Lua脚本在用户所属分片上一次往返原子完成。
+     * 所属分片库存为空时脚本先占用购买记录，再依次到其他分片只扣减库存（每个分片一次往返），
+     * 所有分片都为空才算售罄，并清除占用的购买记录
+     */
+    public StockReservation reserve(Long userId, SeckillProduct seckillProduct, LocalDateTime now) {
+        Long seckillId = seckillProduct.getId();
+        if (soldOutRegistry.isSoldOut(seckillId)) {
+            return StockReservation.of(SeckillStatus.SOLD_OUT);
+        }
+
+        int shards = shardCount(seckillProduct);
+        int home = homeShard(userId, shards);
+        Long code = stringRedisTemplate.execute(seckillScript, homeKeys(userId, seckillId, home, shards),
+                scriptArgs(userId, seckillProduct, now, shards).toArray());
+        if (code == null || code != CLAIMED) {
+            SeckillStatus status = SeckillStatus.of(code);
+            if (status == SeckillStatus.SUCCESS) {
+                return StockReservation.success(home);
+            }
+            if (status == SeckillStatus.SOLD_OUT) {
+                soldOutRegistry.markSoldOut(seckillId);
+            }
+            return StockReservation.of(status);
+        }
+
+        emptyShards.put(stockKey(seckillId, home, shards), Boolean.TRUE);
+        for (int shard : probeOrder(seckillId, home, shards)) {
+            String stockKey = stockKey(seckillId, shard, shards);
+            Long taken = stringRedisTemplate.execute(seckillStockScript, Collections.singletonList(stockKey));
+            if (taken != null && taken == 1) {
+                return StockReservation.success(shard);
+            }
+            emptyShards.put(stockKey, Boolean.TRUE);
+        }
+        return soldOut(userId, seckillId, home, shards);
+    }
+
+    /**
+     * 非阻塞方式预扣库存，逻辑与 {@link #reserve} 相同
+     * 脚本在Lettuce事件循环线程上执行，调用线程不会被阻塞
+     */
+    public Mono<StockReservation> reserveReactive(Long userId, SeckillProduct seckillProduct, LocalDateTime now) {
+        Long seckillId = seckillProduct.getId();
+        if (soldOutRegistry.isSoldOut(seckillId)) {
+            return Mono.just(StockReservation.of(SeckillStatus.SOLD_OUT));
+        }
+
+        int shards = shardCount(seckillProduct);
+        int home = homeShard(userId, shards);
+        return reactiveStringRedisTemplate
+                .execute(seckillScript, homeKeys(userId, seckillId, home, shards),
+                        scriptArgs(userId, seckillProduct, now, shards))
+                .next()
+                .flatMap(code -> {
+                    if (code != CLAIMED) {
+                        SeckillStatus status = SeckillStatus.of(code);
+                        if (status == SeckillStatus.SUCCESS) {
+                            return Mono.just(StockReservation.success(home));
+                        }
+                        if (status == SeckillStatus.SOLD_OUT) {
+                            // 广播售罄标记会访问Redis，放到弹性线程池执行
+                            return Mono.fromCallable(() -> {
+                                soldOutRegistry.markSoldOut(seckillId);
+                                return StockReservation.of(SeckillStatus.SOLD_OUT);
+                            }).subscribeOn(Schedulers.boundedElastic());
+                        }
+                        return Mono.just(StockReservation.of(status));
+                    }
+                    emptyShards.put(stockKey(seckillId, home, shards), Boolean.TRUE);
+                    return Flux.fromIterable(probeOrder(seckillId, home, shards))
+                            .concatMap(shard -> {
+                                String stockKey = stockKey(seckillId, shard, shards);
+                                return reactiveStringRedisTemplate
+                                        .execute(seckillStockScript, Collections.singletonList(stockKey), Collections.emptyList())
+                                        .next()
+                                        .map(taken -> {
+                                            if (taken == 1) {
+                                                return StockReservation.success(shard);
+                                            }
+                                            emptyShards.put(stockKey, Boolean.TRUE);
+                                            return StockReservation.of(SeckillStatus.SOLD_OUT);
+                                        });
+                            })
+                            .filter(StockReservation::isSuccess)
+                            .next()
+                            // 所有分片都已扣空，清除购买记录和广播售罄标记会访问Redis，放到弹性线程池执行
+                            .switchIfEmpty(Mono.fromCallable(() -> soldOut(userId, seckillId, home, shards))
+                                    .subscribeOn(Schedulers.boundedElastic()));
+                })
+                .defaultIfEmpty(StockReservation.of(SeckillStatus.FAILED));
+    }
+
+    /**
+     * 所属分片以外的分片尝试顺序，已知为空的分片放到最后
+     * 它们可能已被回补，因此不能直接跳过
+     */
+    private List<Integer> probeOrder(Long seckillId, int home, int shards) {
+        List<Integer> order = new ArrayList<>(shards - 1);
+        List<Integer> knownEmpty = new ArrayList<>();
+        for (int i = 1; i < shards; i++) {
+            int shard = (home + i) % shards;
+            (emptyShards.containsKey(stockKey(seckillId, shard, shards)) ? knownEmpty : order).add(shard);
+        }
+        order.addAll(knownEmpty);
+        return order;
+    }
+
+    /**
+     * 所有分片都已扣空：清除占用的购买记录并标记售罄
+     */
+    private StockReservation soldOut(Long userId, Long seckillId, int home, int shards) {
+        unmarkBuyer(userId, seckillId, home, shards);
+        soldOutRegistry.markSoldOut(seckillId);
+        return StockReservation.of(SeckillStatus.SOLD_OUT);
+    }
+
+    private List<String> homeKeys(Long userId, Long seckillId, int home, int shards) {
+        return Arrays.asList(stockKey(seckillId, home, shards), buyersKey(seckillId, home, shards, useBitmap(userId)));
+    }
+
+    private List<String> scriptArgs(Long userId, SeckillProduct seckillProduct, LocalDateTime now, int shards) {
+        return Arrays.asList(
+                String.valueOf(toEpochMilli(now)),
+                String.valueOf(toEpochMilli(seckillProduct.getStartTime())),
+                String.valueOf(toEpochMilli(seckillProduct.getEndTime())),
+                buyerMember(userId, shards),
+                useBitmap(userId) ? "bit" : "set",
+                shards > 1 ? "1" : "0");
+    }
+
+    /**
+     * 回补预扣的库存并清除用户购买记录
+     * 订单最终未能落库时调用，库存回补到预扣时实际扣减的分片
+     *
+     * @param shard {@link StockReservation#getShard()}
+     */
+    public void release(Long userId, SeckillProduct seckillProduct, int shard) {
+        Long seckillId = seckillProduct.getId();
+        int shards = shardCount(seckillProduct);
+        String stockKey = stockKey(seckillId, shard, shards);
+        stringRedisTemplate.opsForValue().increment(stockKey);
+        unmarkBuyer(userId, seckillId, homeShard(userId, shards), shards);
+        emptyShards.remove(stockKey);
+        if (soldOutRegistry.isSoldOut(seckillId)) {
+            soldOutRegistry.clear(seckillId);
+        }
+    }
+
+    private void unmarkBuyer(Long userId, Long seckillId, int home, int shards) {
+        if (useBitmap(userId)) {
+            stringRedisTemplate.opsForValue().setBit(buyersKey(seckillId, home, shards, true), userId / shards, false);
+        } else {
+            stringRedisTemplate.opsForSet().remove(buyersKey(seckillId, home, shards, false), String.valueOf(userId));
+        }
+    }
+
+    /**
+     * 活动是否已售罄（仅检查本地标记，不访问Redis）
+     */
+    public boolean isSoldOut(Long seckillId) {
+        return soldOutRegistry.isSoldOut(seckillId);
+    }
+
+    /**
+     * 检查用户是否已购买该秒杀商品
+     */
+    public boolean hasPurchased(Long userId, SeckillProduct seckillProduct) {
+        Long seckillId = seckillProduct.getId();
+        int shards = shardCount(seckillProduct);
+        String buyersKey = buyersKey(seckillId, homeShard(userId, shards), shards, useBitmap(userId));
+        if (useBitmap(userId)) {
+            return Boolean.TRUE.equals(stringRedisTemplate.opsForValue().getBit(buyersKey, userId / shards));
+        }
+        return Boolean.TRUE.equals(stringRedisTemplate.opsForSet().isMember(buyersKey, String.valueOf(userId)));
+    }
+
+    /**
+     * 活动的库存分片数，未单独配置时使用全局默认值
+     */
+    private int shardCount(SeckillProduct seckillProduct) {
+        Integer shards = seckillProduct.getStockShards();
+        return shards != null && shards > 0 ? shards : defaultShards;
+    }
+
+    private static int homeShard(Long userId, int shards) {
+        return (int) Math.floorMod(userId, (long) shards);
+    }
+
+    /**
+     * 分片的hash tag，同一分片的库存和购买记录落在Redis Cluster的同一个slot
+     */
+    private static String shardTag(Long seckillId, int shard, int shards) {
+        return shards == 1 ? "{" + seckillId + "}" : "{" + seckillId + ":" + shard + "}";
+    }
+
+    /**
+     * 库存key seckill:stock:{seckillId[:shard]}
+     */
+    private static String stockKey(Long seckillId, int shard, int shards) {
+        return "seckill:stock:" + shardTag(seckillId, shard, shards);
+    }
+
+    /**
+     * 用户ID不超过位图上限时用位图记录，否则用集合记录，同一用户总是落在同一种结构中
+     */
+    private boolean useBitmap(Long userId) {
+        return userId >= 0 && userId <= bitmapMaxUserId;
+    }
+
+    /**
+     * 购买记录key，保存在用户所属的分片，与该分片的库存key使用相同的hash tag，活动结束时统一过期
+     */
+    private static String buyersKey(Long seckillId, int home, int shards, boolean bitmap) {
+        String tag = shardTag(seckillId, home, shards);
+        return bitmap ? "seckill:buyers:" + tag : "seckill:buyers:set:" + tag;
+    }
+
+    /**
+     * 购买记录中的用户：位图偏移量为 userId / 分片数，各分片位图加起来与不分片时一样大
+     */
+    private String buyerMember(Long userId, int shards) {
+        return String.valueOf(useBitmap(userId) ? userId / shards : userId);
+    }
+
+    private static long toEpochMilli(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,234 @@
+package com.example.service;
+
+import com.example.cache.IdFilter;
+import com.example.cache.TwoLevelCache;
+import com.example.entity.Product;
+import com.example.entity.SeckillProduct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 秒杀活动自动预热服务
+ * 定时查找即将在预热提前量内开始的活动，在开始前完成：
+ * 1. 库存预热到Redis（所有实例中只由抢到预热标记的一个实例执行），完成后写入就绪标记；
+ * 2. 活动和商品详情写入二级缓存（每个实例都执行，Redis写入走管道），登记ID过滤器。
+ * 本地缓存会过期，因此活动开始前每一轮都会重新写入。
+ * 定时预热不处理已开始或已就绪的活动，库存key布局变更后由启动时的迁移把这些活动的库存和购买记录搬到新key
+ */
+@Service
+public class SeckillWarmupService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SeckillWarmupService.class);
+
+    private static final String WARMUP_KEY_PREFIX = "seckill:warmup:";
+
+    private static final String READY_KEY_PREFIX = "seckill:ready:";
+
+    /**
+     * 当前的库存key布局版本，2：库存和购买记录按分片使用hash tag
+     */
+    private static final String LAYOUT_KEY = "seckill:stock:layout";
+
+    private static final String LAYOUT_VERSION = "2";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private TwoLevelCache twoLevelCache;
+
+    @Autowired
+    private IdFilter idFilter;
+
+    @Autowired
+    private SeckillStockService stockService;
+
+    @Autowired
+    private SeckillService seckillService;
+
+    @Autowired
+    private DataSourceRouter dataSourceRouter;
+
+    @Autowired
+    @Qualifier("warmupExecutor")
+    private TaskExecutor warmupExecutor;
+
+    @Value("${seckill.warmup.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 活动开始前多久开始预热
+     */
+    @Value("${seckill.warmup.lead-time:5m}")
+    private Duration leadTime;
+
+    /**
+     * 本实例已完成本地预热的活动及其结束时间
+     */
+    private final ConcurrentMap<Long, LocalDateTime> locallyWarmed = new ConcurrentHashMap<>();
+
+    /**
+     * 启动时把旧版key布局中未结束活动的库存和购买记录迁移到当前布局，所有实例中只由一个实例执行一次。
+     * 迁移失败时不写入布局版本，下次启动重试
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateStockLayout() {
+        if (LAYOUT_VERSION.equals(stringRedisTemplate.opsForValue().get(LAYOUT_KEY))) {
+            return;
+        }
+        String lockKey = LAYOUT_KEY + ":lock";
+        if (!Boolean.TRUE.equals(stringRedisTemplate.opsForValue().setIfAbsent(lockKey, "1", Duration.ofMinutes(10)))) {
+            logger.info("其他实例正在迁移库存key布局");
+            return;
+        }
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            List<SeckillProduct> active = dataSourceRouter.onPrimary(() -> entityManager.createQuery(
+                    "SELECT sp FROM SeckillProduct sp WHERE sp.status = 1 AND sp.endTime > :now", SeckillProduct.class)
+                    .setParameter("now", now)
+                    .getResultList());
+            int migrated = 0;
+            for (SeckillProduct seckillProduct : active) {
+                if (stockService.migrateLegacyKeys(seckillProduct)) {
+                    migrated++;
+                    logger.info("秒杀活动 {} 的库存和购买记录已迁移到新的key布局", seckillProduct.getId());
+                }
+            }
+            stringRedisTemplate.opsForValue().set(LAYOUT_KEY, LAYOUT_VERSION);
+            logger.info("库存key布局迁移完成，共迁移 {} 个活动", migrated);
+        } catch (RuntimeException e) {
+            logger.error("库存key布局迁移失败，下次启动时重试", e);
+        } finally {
+            stringRedisTemplate.delete(lockKey);
+        }
+    }
+
+    /**
+     * 定时预热即将开始的活动
+     */
+    @Scheduled(initialDelayString = "${seckill.warmup.interval:PT10S}",
+            fixedDelayString = "${seckill.warmup.interval:PT10S}")
+    public void warmUpcoming() {
+        if (!enabled) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        locallyWarmed.values().removeIf(endTime -> endTime.isBefore(now));
+
+        // 活动中的库存会写入Redis，从主库读取
+        List<SeckillProduct> upcoming = dataSourceRouter.onPrimary(() -> entityManager.createQuery(
+                "SELECT sp FROM SeckillProduct sp WHERE sp.status = 1 AND sp.startTime > :now AND sp.startTime <= :deadline",
+                SeckillProduct.class)
+                .setParameter("now", now)
+                .setParameter("deadline", now.plus(leadTime))
+                .getResultList());
+        if (upcoming.isEmpty()) {
+            return;
+        }
+
+        // 各活动并行预热
+        CompletableFuture<?>[] futures = upcoming.stream()
+                .map(seckillProduct -> CompletableFuture.runAsync(() -> warm(seckillProduct), warmupExecutor)
+                        .exceptionally(e -> {
+                            logger.warn("预热秒杀活动失败: {}", seckillProduct.getId(), e);
+                            return null;
+                        }))
+                .toArray(CompletableFuture[]::new);
+        CompletableFuture.allOf(futures).join();
+
+        // 活动列表缓存未命中时加载一次
+        seckillService.getAllSeckillProducts();
+    }
+
+    /**
+     * 预热单个活动
+     */
+    public void warm(SeckillProduct seckillProduct) {
+        Long seckillId = seckillProduct.getId();
+        Duration ttl = Duration.between(LocalDateTime.now(), seckillProduct.getEndTime());
+        if (ttl.isNegative() || ttl.isZero()) {
+            return;
+        }
+
+        // 库存只由一个实例预热，已就绪的活动不再重复预热
+        String warmupKey = WARMUP_KEY_PREFIX + seckillId;
+        if (!isReady(seckillId)
+                && Boolean.TRUE.equals(stringRedisTemplate.opsForValue().setIfAbsent(warmupKey, "1", ttl))) {
+            try {
+                stockService.preloadStock(seckillProduct);
+                stringRedisTemplate.opsForValue().set(READY_KEY_PREFIX + seckillId,
+                        String.valueOf(System.currentTimeMillis()), ttl);
+                logger.info("秒杀活动 {} 库存预热完成", seckillId);
+            } catch (RuntimeException e) {
+                // 释放预热标记，下一轮重试
+                stringRedisTemplate.delete(warmupKey);
+                throw e;
+            }
+        }
+
+        // 活动和商品详情写入二级缓存
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put("seckill:product:" + seckillId, seckillProduct);
+        Product product = entityManager.find(Product.class, seckillProduct.getProductId());
+        if (product != null) {
+            values.put("product:" + product.getId(), product);
+            registerId(IdFilter.IdType.PRODUCT, product.getId());
+        }
+        twoLevelCache.putAll(values, 30, TimeUnit.MINUTES);
+        registerId(IdFilter.IdType.SECKILL, seckillId);
+
+        locallyWarmed.put(seckillId, seckillProduct.getEndTime());
+    }
+
+    /**
+     * 直接写入数据库的数据不会经过新增接口，预热时补充登记到ID过滤器
+     */
+    private void registerId(IdFilter.IdType type, Long id) {
+        if (!idFilter.mightExist(type, id)) {
+            idFilter.add(type, id);
+        }
+    }
+
+    /**
+     * 活动库存是否已预热完成（所有实例可见）
+     */
+    public boolean isReady(Long seckillId) {
+        return Boolean.TRUE.equals(stringRedisTemplate.hasKey(READY_KEY_PREFIX + seckillId));
+    }
+
+    /**
+     * 活动的预热状态
+     */
+    public Map<String, Object> getReadyState(Long seckillId) {
+        Map<String, Object> state = new HashMap<>();
+        state.put("seckillId", seckillId);
+        state.put("stockReady", isReady(seckillId));
+        state.put("localReady", locallyWarmed.containsKey(seckillId));
+        return state;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,100 @@
+package com.example.service;
+
+import com.example.exception.BusinessException;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 号段ID分配器
+ * 每次从tb_id_segment预取一段ID（默认1000个）缓存在内存中，
+ * 号段内的分配只是一次CAS，号段用完时才访问数据库
+ */
+@Component
+public class SegmentIdAllocator {
+
+    private static final Logger logger = LoggerFactory.getLogger(SegmentIdAllocator.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    private final ConcurrentMap<String, Segment> segments = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        // 取号使用独立事务，不受调用方事务回滚影响，避免号段被重复分配
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * 获取下一个ID
+     */
+    public long nextId(String bizTag) {
+        while (true) {
+            Segment segment = segments.get(bizTag);
+            if (segment != null) {
+                long id = segment.cursor.getAndIncrement();
+                if (id <= segment.max) {
+                    return id;
+                }
+            }
+            refill(bizTag, segment);
+        }
+    }
+
+    /**
+     * 号段用完时从数据库取下一个号段
+     * 只有发现号段耗尽的线程会进入这里，其他线程拿到新号段后直接返回
+     */
+    private synchronized void refill(String bizTag, Segment exhausted) {
+        if (segments.get(bizTag) != exhausted) {
+            return; // 其他线程已经完成了刷新
+        }
+        Segment segment = transactionTemplate.execute(status -> {
+            int updated = jdbcTemplate.update(
+                    "UPDATE tb_id_segment SET max_id = max_id + step WHERE biz_tag = ?", bizTag);
+            if (updated == 0) {
+                throw new BusinessException("号段未配置: " + bizTag);
+            }
+            List<Segment> rows = jdbcTemplate.query(
+                    "SELECT max_id, step FROM tb_id_segment WHERE biz_tag = ?",
+                    (rs, rowNum) -> new Segment(rs.getLong("max_id") - rs.getInt("step") + 1, rs.getLong("max_id")),
+                    bizTag);
+            return rows.get(0);
+        });
+        segments.put(bizTag, segment);
+        logger.debug("获取新号段 {}: [{}, {}]", bizTag, segment.cursor.get(), segment.max);
+    }
+
+    /**
+     * 内存中的号段，分配区间为 [cursor, max]
+     */
+    private static final class Segment {
+
+        private final AtomicLong cursor;
+
+        private final long max;
+
+        private Segment(long start, long max) {
+            this.cursor = new AtomicLong(start);
+            this.max = max;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,137 @@
+package com.example.service;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+
+/**
+ * 无状态会话令牌
+ * 令牌 = Base64URL(用户ID 8字节 + 过期时间秒 8字节) + "." + Base64URL(HMAC-SHA256签名)，共66个字符。
+ * 校验只需要本地计算一次HMAC，不访问Redis和数据库；所有实例必须配置相同的密钥
+ */
+@Service
+public class SessionTokenService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SessionTokenService.class);
+
+    /**
+     * 令牌校验通过后保存用户ID的请求属性
+     */
+    public static final String USER_ID_ATTRIBUTE = "seckill.session.userId";
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private static final int PAYLOAD_LENGTH = 16;
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    /**
+     * Base64编码的签名密钥，至少32字节；
+     * 秒杀接口必须携带令牌时未配置则拒绝启动，否则使用随机密钥，重启或多实例之间令牌不通用
+     */
+    @Value("${seckill.session.secret:}")
+    private String secret;
+
+    @Value("${seckill.session.required:true}")
+    private boolean required;
+
+    @Value("${seckill.session.ttl:PT2H}")
+    private Duration ttl;
+
+    private SecretKeySpec key;
+
+    /**
+     * Mac不是线程安全的，每个线程缓存一个已初始化的实例
+     */
+    private final ThreadLocal<Mac> macs = ThreadLocal.withInitial(this::newMac);
+
+    @PostConstruct
+    public void init() {
+        byte[] keyBytes;
+        if (secret == null || secret.isBlank()) {
+            if (required) {
+                throw new IllegalStateException("seckill.session.required=true 时必须配置 seckill.session.secret"
+                        + "（环境变量 SECKILL_SESSION_SECRET，可用 openssl rand -base64 32 生成）");
+            }
+            keyBytes = new byte[32];
+            new SecureRandom().nextBytes(keyBytes);
+            logger.warn("未配置 seckill.session.secret，使用随机密钥，重启后令牌失效，多实例之间令牌不通用");
+        } else {
+            keyBytes = Base64.getDecoder().decode(secret.trim());
+            if (keyBytes.length < 32) {
+                throw new IllegalStateException("seckill.session.secret 解码后至少需要32字节");
+            }
+        }
+        key = new SecretKeySpec(keyBytes, ALGORITHM);
+    }
+
+    /**
+     * 为用户签发令牌
+     */
+    public String issue(Long userId) {
+        long expiresAt = System.currentTimeMillis() / 1000 + ttl.getSeconds();
+        byte[] payload = ByteBuffer.allocate(PAYLOAD_LENGTH).putLong(userId).putLong(expiresAt).array();
+        return ENCODER.encodeToString(payload) + "." + ENCODER.encodeToString(macs.get().doFinal(payload));
+    }
+
+    /**
+     * 令牌有效期（秒）
+     */
+    public long getTtlSeconds() {
+        return ttl.getSeconds();
+    }
+
+    /**
+     * 校验令牌，返回其中的用户ID；格式错误、签名不符或已过期时返回null
+     */
+    public Long verify(String token) {
+        if (token == null) {
+            return null;
+        }
+        int sep = token.indexOf('.');
+        if (sep <= 0) {
+            return null;
+        }
+        byte[] payload;
+        byte[] signature;
+        try {
+            payload = DECODER.decode(token.substring(0, sep));
+            signature = DECODER.decode(token.substring(sep + 1));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        if (payload.length != PAYLOAD_LENGTH || !MessageDigest.isEqual(signature, macs.get().doFinal(payload))) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(payload);
+        long userId = buffer.getLong();
+        long expiresAt = buffer.getLong();
+        if (expiresAt < System.currentTimeMillis() / 1000) {
+            return null;
+        }
+        return userId;
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("初始化令牌签名失败", e);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,85 @@
+package com.example.service;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 本地售罄标记
+ * 活动售罄后，本实例的后续请求直接在内存中拒绝，不再访问Redis和数据库；
+ * 标记的设置和清除通过Redis发布订阅广播给其他实例
+ */
+@Component
+public class SoldOutRegistry implements MessageListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(SoldOutRegistry.class);
+
+    private static final String CHANNEL = "seckill:soldout";
+
+    private final ConcurrentMap<Long, Boolean> soldOut = new ConcurrentHashMap<>();
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private RedisMessageListenerContainer listenerContainer;
+
+    @PostConstruct
+    public void subscribe() {
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+    }
+
+    /**
+     * 活动是否已售罄
+     */
+    public boolean isSoldOut(Long seckillId) {
+        return soldOut.containsKey(seckillId);
+    }
+
+    /**
+     * 标记活动售罄并通知其他实例
+     */
+    public void markSoldOut(Long seckillId) {
+        if (soldOut.putIfAbsent(seckillId, Boolean.TRUE) == null) {
+            logger.info("秒杀活动已售罄: {}", seckillId);
+            stringRedisTemplate.convertAndSend(CHANNEL, "+" + seckillId);
+        }
+    }
+
+    /**
+     * 清除售罄标记并通知其他实例（库存重新预热或回补时调用）
+     */
+    public void clear(Long seckillId) {
+        soldOut.remove(seckillId);
+        stringRedisTemplate.convertAndSend(CHANNEL, "-" + seckillId);
+    }
+
+    /**
+     * 接收其他实例广播的售罄标记变更
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        try {
+            Long seckillId = Long.valueOf(body.substring(1));
+            if (body.charAt(0) == '+') {
+                soldOut.put(seckillId, Boolean.TRUE);
+            } else {
+                soldOut.remove(seckillId);
+            }
+        } catch (RuntimeException e) {
+            logger.warn("无法解析售罄标记消息: {}", body);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,236 @@
+package com.example.service;
+
+import com.example.cache.TwoLevelCache;
+import com.example.metrics.SeckillMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 数据库库存批量扣减
+ * 下单时不再逐单更新商品行，只在内存中按秒杀活动累计待扣减数量，
+ * 由定时任务每个周期对每个活动执行一次扣减：
+ *   1. 把该活动未同步的订单标记为已同步，得到本次扣减数量n；
+ *   2. 秒杀商品表和商品表的库存各减n，库存不足时记录超卖告警。
+ * 三条语句在同一事务中执行，扣减数量以订单表为准，内存计数只用于判断哪些活动需要同步，
+ * 因此进程崩溃或多实例并发同步都不会重复扣减或漏扣
+ */
+@Component
+public class StockFlusher {
+
+    private static final Logger logger = LoggerFactory.getLogger(StockFlusher.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private TwoLevelCache twoLevelCache;
+
+    @Autowired
+    private SeckillMetrics metrics;
+
+    @Autowired
+    private OrderShardRouter shardRouter;
+
+    @Autowired
+    private DataSourceRouter dataSourceRouter;
+
+    /**
+     * 同步库存后清除商品列表和详情缓存的最小间隔，活动售罄时不受限制
+     */
+    @Value("${seckill.stock.cache-evict-interval:PT30S}")
+    private Duration cacheEvictInterval;
+
+    private TransactionTemplate transactionTemplate;
+
+    /**
+     * 待同步的活动：秒杀活动ID -> 待扣减数量及商品ID
+     */
+    private final ConcurrentMap<Long, Pending> pending = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        // 读已提交：标记订单时不加间隙锁，不阻塞并发写入的新订单
+        transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+    }
+
+    /**
+     * 记录待扣减的库存，在订单事务提交后生效
+     */
+    public void record(Long seckillId, Long productId, int count) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    add(seckillId, productId, count);
+                }
+            });
+        } else {
+            add(seckillId, productId, count);
+        }
+    }
+
+    private void add(Long seckillId, Long productId, int count) {
+        pending.computeIfAbsent(seckillId, id -> new Pending(productId)).count.add(count);
+    }
+
+    /**
+     * 启动时找出上次未同步的活动（进程崩溃或其他实例遗留），在主库上查询，避免漏掉只读库尚未复制的订单
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recover() {
+        dataSourceRouter.onPrimary(() -> {
+            for (String table : shardRouter.tables()) {
+                jdbcTemplate.query(
+                        "SELECT seckill_id, product_id, COUNT(*) FROM " + table + " " +
+                                "WHERE stock_flushed = 0 AND seckill_id IS NOT NULL GROUP BY seckill_id, product_id",
+                        rs -> {
+                            add(rs.getLong(1), rs.getLong(2), rs.getInt(3));
+                        });
+            }
+        });
+        if (!pending.isEmpty()) {
+            logger.info("发现 {} 个活动有未同步的库存扣减", pending.size());
+            flush();
+        }
+    }
+
+    /**
+     * 已落库但尚未同步到数据库库存的订单数，在主库上查询
+     */
+    public int unflushedCount(Long seckillId) {
+        return dataSourceRouter.onPrimary(() -> {
+            int n = 0;
+            for (String table : shardRouter.tables()) {
+                Integer count = jdbcTemplate.queryForObject(
+                        "SELECT COUNT(*) FROM " + table + " WHERE seckill_id = ? AND stock_flushed = 0",
+                        Integer.class, seckillId);
+                n += count == null ? 0 : count;
+            }
+            return n;
+        });
+    }
+
+    /**
+     * 定时同步库存
+     */
+    @Scheduled(fixedDelayString = "${seckill.stock.flush-interval:PT1S}")
+    public void flush() {
+        for (Map.Entry<Long, Pending> entry : pending.entrySet()) {
+            Pending p = entry.getValue();
+            long expected = p.count.sumThenReset();
+            if (expected == 0) {
+                continue;
+            }
+            try {
+                flush(entry.getKey(), p);
+            } catch (RuntimeException e) {
+                // 未同步的订单仍然保留在订单表中，下个周期重试
+                p.count.add(expected);
+                logger.warn("同步秒杀活动 {} 的库存失败", entry.getKey(), e);
+            }
+        }
+    }
+
+    private void flush(Long seckillId, Pending p) {
+        Integer remaining = metrics.phase(SeckillMetrics.PHASE_STOCK_FLUSH, () -> transactionTemplate.execute(status -> {
+            // 活动的订单分布在所有分片中
+            int n = 0;
+            for (String table : shardRouter.tables()) {
+                n += jdbcTemplate.update(
+                        "UPDATE " + table + " SET stock_flushed = 1 WHERE seckill_id = ? AND stock_flushed = 0",
+                        seckillId);
+            }
+            if (n == 0) {
+                return null;
+            }
+            decrement("tb_seckill_product", seckillId, n);
+            decrement("tb_product", p.productId, n);
+            logger.debug("秒杀活动 {} 同步扣减库存 {}", seckillId, n);
+            return stockCount("tb_seckill_product", seckillId);
+        }));
+        if (remaining == null) {
+            return;
+        }
+        // 活动详情缓存保留预热时的库存，剩余库存以Redis为准；
+        // 列表和详情缓存按间隔刷新一次，售罄时立即刷新，避免每个周期清除热点key（包括本地缓存和响应缓存）
+        long now = System.currentTimeMillis();
+        if (remaining <= 0 || now - p.lastEvictedAt >= cacheEvictInterval.toMillis()) {
+            p.lastEvictedAt = now;
+            metrics.phase(SeckillMetrics.PHASE_CACHE_INVALIDATION,
+                    () -> twoLevelCache.evict("product:" + p.productId, "products:all", "seckill:products:all"));
+        }
+    }
+
+    /**
+     * 扣减库存，库存不足以扣减已落库的订单说明发生了超卖：记录错误和指标后仍然扣减，
+     * 用负库存保留超卖数量，便于告警和对账，不能截断为0掩盖问题
+     */
+    private void decrement(String table, Long id, int n) {
+        if (jdbcTemplate.update("UPDATE " + table + " SET stock_count = stock_count - ? WHERE id = ? AND stock_count >= ?",
+                n, id, n) > 0) {
+            return;
+        }
+        Integer stock = stockCount(table, id);
+        if (stock == null) {
+            logger.warn("同步库存时 {} 中不存在记录 {}，跳过扣减 {}", table, id, n);
+            return;
+        }
+        logger.error("库存不足以扣减已落库的订单，可能超卖：{} id={} 库存={} 待扣减={}", table, id, stock, n);
+        metrics.stockOversell(table, n - Math.max(stock, 0));
+        jdbcTemplate.update("UPDATE " + table + " SET stock_count = stock_count - ? WHERE id = ?", n, id);
+    }
+
+    private Integer stockCount(String table, Long id) {
+        List<Integer> stock = jdbcTemplate.queryForList("SELECT stock_count FROM " + table + " WHERE id = ?", Integer.class, id);
+        return stock.isEmpty() ? null : stock.get(0);
+    }
+
+    /**
+     * 停机前同步一次
+     */
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private static final class Pending {
+
+        private final Long productId;
+
+        private final LongAdder count = new LongAdder();
+
+        /**
+         * 上次清除商品缓存的时间，只由定时任务线程访问
+         */
+        private volatile long lastEvictedAt;
+
+        private Pending(Long productId) {
+            this.productId = productId;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,42 @@
+package com.example.service;
+
+import com.example.common.SeckillStatus;
+
+/**
+ * 预扣库存结果
+ * 成功时记录实际扣减的库存分片，回补时必须回补到同一个分片
+ */
+public class StockReservation {
+
+    private final SeckillStatus status;
+
+    private final int shard;
+
+    private StockReservation(SeckillStatus status, int shard) {
+        this.status = status;
+        this.shard = shard;
+    }
+
+    public static StockReservation success(int shard) {
+        return new StockReservation(SeckillStatus.SUCCESS, shard);
+    }
+
+    public static StockReservation of(SeckillStatus status) {
+        return new StockReservation(status, -1);
+    }
+
+    public SeckillStatus getStatus() {
+        return status;
+    }
+
+    public boolean isSuccess() {
+        return status == SeckillStatus.SUCCESS;
+    }
+
+    /**
+     * 扣减的库存分片，未成功时为-1
+     */
+    public int getShard() {
+        return shard;
+    }
+}
\ No newline at end of file
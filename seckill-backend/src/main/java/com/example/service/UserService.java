@@ -1,5 +1,8 @@
 package com.example.service;
 
+import com.example.cache.CacheAside;
+import com.example.cache.IdFilter;
+import com.example.cache.UserRegistry;
 import com.example.entity.User;
 import com.example.exception.BusinessException;
 import jakarta.persistence.EntityManager;
@@ -24,6 +27,18 @@ public class UserService {
     @Autowired
     private RedisTemplate<String, Object> redisTemplate;
 
+    @Autowired
+    private CacheAside cacheAside;
+
+    @Autowired
+    private IdFilter idFilter;
+
+    @Autowired
+    private DataSourceRouter dataSourceRouter;
+
+    @Autowired
+    private UserRegistry userRegistry;
+
     /**
      * 用户注册
      */
@@ -54,6 +69,10 @@ public class UserService {
             // 创建用户
             User user = new User(username, encryptedPassword);
             entityManager.persist(user);
+            idFilter.add(IdFilter.IdType.USER, user.getId());
+            userRegistry.register(user.getId());
+            // 清除可能存在的空值标记
+            redisTemplate.delete("user:" + user.getId());
 
             return true;
         } catch (BusinessException e) {
@@ -65,18 +84,20 @@ public class UserService {
 
     /**
      * 用户登录
+     * 用户名在只读库中不存在时到主库再查一次，刚注册的用户可能还没有复制到只读库
      */
     public User login(String username, String password) {
         try {
             // 密码加密
             String encryptedPassword = DigestUtils.md5DigestAsHex(password.getBytes());
 
-            User user = entityManager.createQuery("SELECT u FROM User u WHERE u.username = :username AND u.password = :password", User.class)
-                    .setParameter("username", username)
-                    .setParameter("password", encryptedPassword)
-                    .getResultStream()
-                    .findFirst()
-                    .orElse(null);
+            User user = findByUsername(username);
+            if (user == null && dataSourceRouter.isEnabled()) {
+                user = dataSourceRouter.onPrimary(() -> findByUsername(username));
+            }
+            if (user != null && !encryptedPassword.equals(user.getPassword())) {
+                user = null;
+            }
 
             if (user != null) {
                 // 不缓存密码信息
@@ -89,28 +110,44 @@ public class UserService {
         }
     }
 
+    /**
+     * 用户是否存在
+     * 先查本地用户ID位图，不访问Redis和数据库；位图无法确定时（同步之后新增的ID）按ID查询用户
+     */
+    public boolean exists(Long id) {
+        Boolean known = userRegistry.exists(id);
+        if (known != null) {
+            return known;
+        }
+        if (getUserById(id) == null) {
+            return false;
+        }
+        userRegistry.addLocal(id);
+        return true;
+    }
+
     /**
      * 根据ID获取用户
      */
     public User getUserById(Long id) {
+        // 不可能存在的ID直接返回，不访问Redis和数据库
+        if (!idFilter.mightExist(IdFilter.IdType.USER, id)) {
+            return null;
+        }
         String cacheKey = "user:" + id;
-        User user = (User) redisTemplate.opsForValue().get(cacheKey);
-
-        if (user == null) {
+        return cacheAside.get(cacheKey, 30, TimeUnit.MINUTES, () -> {
             User dbUser = entityManager.find(User.class, id);
-            if (dbUser != null) {
-                // 创建新的User对象，避免修改原始实体
-                user = new User();
-                user.setId(dbUser.getId());
-                user.setUsername(dbUser.getUsername());
-                user.setCreateTime(dbUser.getCreateTime());
-                // 不设置密码信息
-
-                redisTemplate.opsForValue().set(cacheKey, user, 30, TimeUnit.MINUTES);
+            if (dbUser == null) {
+                return null;
             }
-        }
-
-        return user;
+            // 创建新的User对象，避免修改原始实体
+            User user = new User();
+            user.setId(dbUser.getId());
+            user.setUsername(dbUser.getUsername());
+            user.setCreateTime(dbUser.getCreateTime());
+            // 不设置密码信息
+            return user;
+        });
     }
 
     /**
@@ -121,11 +158,7 @@ public class UserService {
         User user = (User) redisTemplate.opsForValue().get(cacheKey);
 
         if (user == null) {
-            User dbUser = entityManager.createQuery("SELECT u FROM User u WHERE u.username = :username", User.class)
-                    .setParameter("username", username)
-                    .getResultStream()
-                    .findFirst()
-                    .orElse(null);
+            User dbUser = findByUsername(username);
 
             if (dbUser != null) {
                 // 创建新的User对象，避免修改原始实体
@@ -141,4 +174,12 @@ public class UserService {
 
         return user;
     }
+
+    private User findByUsername(String username) {
+        return entityManager.createQuery("SELECT u FROM User u WHERE u.username = :username", User.class)
+                .setParameter("username", username)
+                .getResultStream()
+                .findFirst()
+                .orElse(null);
+    }
 }
\ No newline at end of file
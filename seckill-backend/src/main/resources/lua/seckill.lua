@@ -0,0 +1,60 @@
+-- 秒杀原子脚本：一次往返完成 重复购买检查 + 活动时间检查 + 库存检查 + 扣减库存 + 标记用户
+-- 两个key带相同的hash tag {seckillId[:shard]}，Redis Cluster下落在同一个slot
+-- KEYS[1] 用户所属分片的库存key   seckill:stock:{seckillId[:shard]}
+-- KEYS[2] 用户所属分片的购买记录key seckill:buyers:{seckillId[:shard]}（位图）或 seckill:buyers:set:{seckillId[:shard]}（集合）
+-- ARGV[1] 当前时间(毫秒)
+-- ARGV[2] 活动开始时间(毫秒)
+-- ARGV[3] 活动结束时间(毫秒)
+-- ARGV[4] 位图偏移量（userId / 分片数）或集合成员（userId）
+-- ARGV[5] 购买记录结构 bit-位图 set-集合
+-- ARGV[6] 本分片库存为空时是否先占用购买记录 1-是 0-否
+-- 返回值与 com.example.common.SeckillStatus 的 code 一一对应
+--   1 成功  0 库存不足  -1 重复购买  -2 未开始  -3 已结束  -4 库存未预热
+-- 另外 3 表示本分片库存为空但已占用购买记录，由调用方到其他分片扣减库存（seckill_stock.lua），
+-- 都扣减失败时再清除购买记录
+
+local bitmap = ARGV[5] == 'bit'
+local purchased
+if bitmap then
+    purchased = redis.call('getbit', KEYS[2], ARGV[4]) == 1
+else
+    purchased = redis.call('sismember', KEYS[2], ARGV[4]) == 1
+end
+if purchased then
+    return -1
+end
+
+local now = tonumber(ARGV[1])
+local startTime = tonumber(ARGV[2])
+local endTime = tonumber(ARGV[3])
+if now < startTime then
+    return -2
+end
+if now > endTime then
+    return -3
+end
+
+local stock = redis.call('get', KEYS[1])
+if not stock then
+    return -4
+end
+
+local result = 1
+if tonumber(stock) > 0 then
+    redis.call('decr', KEYS[1])
+elseif ARGV[6] == '1' then
+    result = 3
+else
+    return 0
+end
+
+if bitmap then
+    redis.call('setbit', KEYS[2], ARGV[4], 1)
+else
+    redis.call('sadd', KEYS[2], ARGV[4])
+end
+-- 每个分片的购买记录只在第一次写入时设置一次过期时间
+if redis.call('pttl', KEYS[2]) < 0 then
+    redis.call('pexpireat', KEYS[2], endTime)
+end
+return result
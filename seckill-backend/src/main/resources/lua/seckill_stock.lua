@@ -0,0 +1,11 @@
+-- 分片库存扣减脚本：用户所属分片库存为空、已占用购买记录后，到其他分片扣减库存
+-- 只访问一个key，Redis Cluster下可以在任意分片上执行
+-- KEYS[1] 库存key seckill:stock:{seckillId:shard}
+-- 返回值 1 成功  0 库存不足或未预热
+
+local stock = redis.call('get', KEYS[1])
+if not stock or tonumber(stock) <= 0 then
+    return 0
+end
+redis.call('decr', KEYS[1])
+return 1
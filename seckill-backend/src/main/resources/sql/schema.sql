@@ -0,0 +1,72 @@
+-- 秒杀系统数据库初始化脚本
+-- docker-compose 启动MySQL时会自动执行本目录下的脚本
+
+CREATE DATABASE IF NOT EXISTS seckill DEFAULT CHARSET utf8mb4;
+USE seckill;
+
+-- 商品表
+CREATE TABLE IF NOT EXISTS tb_product (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    product_name VARCHAR(100) NOT NULL COMMENT '商品名称',
+    product_desc TEXT COMMENT '商品描述',
+    price DECIMAL(10,2) NOT NULL COMMENT '商品价格',
+    stock_count INT NOT NULL DEFAULT 0 COMMENT '库存数量',
+    status TINYINT DEFAULT 1 COMMENT '商品状态 1-正常 0-下架',
+    create_time DATETIME DEFAULT CURRENT_TIMESTAMP,
+    INDEX idx_status (status)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='商品表';
+
+-- 秒杀商品表
+CREATE TABLE IF NOT EXISTS tb_seckill_product (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    product_id BIGINT NOT NULL COMMENT '商品ID',
+    seckill_price DECIMAL(10,2) NOT NULL COMMENT '秒杀价格',
+    stock_count INT NOT NULL COMMENT '秒杀库存',
+    start_time DATETIME NOT NULL COMMENT '秒杀开始时间',
+    end_time DATETIME NOT NULL COMMENT '秒杀结束时间',
+    status TINYINT DEFAULT 1 COMMENT '状态 1-正常 0-结束',
+    stock_shards INT DEFAULT NULL COMMENT 'Redis库存分片数，为空时使用应用默认配置',
+    create_time DATETIME DEFAULT CURRENT_TIMESTAMP,
+    INDEX idx_product (product_id),
+    INDEX idx_status (status)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='秒杀商品表';
+
+-- 用户表
+CREATE TABLE IF NOT EXISTS tb_user (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    username VARCHAR(50) NOT NULL UNIQUE COMMENT '用户名',
+    password VARCHAR(100) NOT NULL COMMENT '密码',
+    create_time DATETIME DEFAULT CURRENT_TIMESTAMP
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='用户表';
+
+-- 秒杀订单表
+-- 主键由号段分配器(tb_id_segment)生成，以便Hibernate批量插入
+-- 新订单stock_flushed为0，由StockFlusher按活动批量扣减商品表和秒杀商品表的库存后置为1
+-- 用户订单按 (user_id, create_time) 游标分页，已有的库升级时执行：
+--   ALTER TABLE tb_seckill_order DROP INDEX idx_user, ADD INDEX idx_user_time (user_id, create_time);
+CREATE TABLE IF NOT EXISTS tb_seckill_order (
+    id BIGINT PRIMARY KEY COMMENT '订单ID',
+    order_no VARCHAR(64) NOT NULL UNIQUE COMMENT '订单号',
+    user_id BIGINT NOT NULL COMMENT '用户ID',
+    product_id BIGINT NOT NULL COMMENT '商品ID',
+    seckill_id BIGINT COMMENT '秒杀活动ID',
+    seckill_price DECIMAL(10,2) NOT NULL COMMENT '秒杀价格',
+    status TINYINT DEFAULT 0 COMMENT '订单状态 0-成功 1-失败',
+    stock_flushed TINYINT NOT NULL DEFAULT 1 COMMENT '库存扣减是否已同步 0-未同步 1-已同步',
+    create_time DATETIME DEFAULT CURRENT_TIMESTAMP,
+    INDEX idx_user_time (user_id, create_time),
+    INDEX idx_product (product_id),
+    INDEX idx_seckill_flushed (seckill_id, stock_flushed)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='秒杀订单表';
+
+-- 号段表
+-- 每次取号将max_id推进step，应用在内存中分配(max_id - step, max_id]区间内的ID
+-- 已有数据的库升级时，max_id需初始化为不小于对应表当前最大ID的值
+CREATE TABLE IF NOT EXISTS tb_id_segment (
+    biz_tag VARCHAR(64) PRIMARY KEY COMMENT '业务标识',
+    max_id BIGINT NOT NULL DEFAULT 0 COMMENT '已分配的最大ID',
+    step INT NOT NULL DEFAULT 1000 COMMENT '每次分配的号段长度',
+    update_time DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='号段表';
+
+INSERT IGNORE INTO tb_id_segment (biz_tag, max_id, step) VALUES ('seckill_order', 0, 1000);
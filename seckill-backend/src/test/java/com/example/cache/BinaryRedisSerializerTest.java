@@ -0,0 +1,213 @@
+package com.example.cache;
+
+import com.example.config.RedisConfig;
+import com.example.entity.Product;
+import com.example.entity.SeckillOrder;
+import com.example.entity.SeckillProduct;
+import com.example.entity.User;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class BinaryRedisSerializerTest {
+
+    private static final byte FORMAT_RAW = (byte) 0xB1;
+
+    private static final byte FORMAT_LZ4 = (byte) 0xB2;
+
+    private static final LocalDateTime TIME = LocalDateTime.of(2026, 10, 17, 12, 30, 15, 123_000_000);
+
+    /**
+     * 0：所有值都压缩；Integer.MAX_VALUE：都不压缩
+     */
+    @ParameterizedTest
+    @ValueSource(ints = {0, Integer.MAX_VALUE})
+    void productRoundTrip(int compressThreshold) {
+        Product product = product(1L, "手机");
+        Product copy = (Product) roundTrip(product, compressThreshold);
+        assertProduct(product, copy);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, Integer.MAX_VALUE})
+    void seckillProductRoundTrip(int compressThreshold) {
+        SeckillProduct seckillProduct = seckillProduct(2L);
+        SeckillProduct copy = (SeckillProduct) roundTrip(seckillProduct, compressThreshold);
+        assertSeckillProduct(seckillProduct, copy);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, Integer.MAX_VALUE})
+    void seckillOrderRoundTrip(int compressThreshold) {
+        SeckillOrder order = order(1234567890123L);
+        SeckillOrder copy = (SeckillOrder) roundTrip(order, compressThreshold);
+        assertOrder(order, copy);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, Integer.MAX_VALUE})
+    void userRoundTrip(int compressThreshold) {
+        User user = new User();
+        user.setId(42L);
+        user.setUsername("张三");
+        user.setPassword("e10adc3949ba59abbe56e057f20f883e");
+        user.setCreateTime(TIME);
+        User copy = (User) roundTrip(user, compressThreshold);
+        assertEquals(user.getId(), copy.getId());
+        assertEquals(user.getUsername(), copy.getUsername());
+        assertEquals(user.getPassword(), copy.getPassword());
+        assertEquals(user.getCreateTime(), copy.getCreateTime());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, Integer.MAX_VALUE})
+    void listRoundTrip(int compressThreshold) {
+        List<Product> products = Arrays.asList(product(1L, "a"), null, product(-3L, ""));
+        List<?> copy = (List<?>) roundTrip(products, compressThreshold);
+        assertEquals(3, copy.size());
+        assertProduct(products.get(0), (Product) copy.get(0));
+        assertNull(copy.get(1));
+        assertProduct(products.get(2), (Product) copy.get(2));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, Integer.MAX_VALUE})
+    void stringRoundTrip(int compressThreshold) {
+        assertEquals("秒杀", roundTrip("秒杀", compressThreshold));
+        assertEquals("", roundTrip("", compressThreshold));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, Integer.MAX_VALUE})
+    void nullFieldsRoundTrip(int compressThreshold) {
+        Product product = new Product();
+        Product copy = (Product) roundTrip(product, compressThreshold);
+        assertProduct(product, copy);
+
+        SeckillOrder order = new SeckillOrder();
+        assertOrder(order, (SeckillOrder) roundTrip(order, compressThreshold));
+    }
+
+    @Test
+    void compressionFollowsThreshold() {
+        Product product = product(1L, "x".repeat(200));
+        assertEquals(FORMAT_LZ4, RedisConfig.valueSerializer("binary", 16).serialize(product)[0]);
+        assertEquals(FORMAT_RAW, RedisConfig.valueSerializer("binary", 4096).serialize(product)[0]);
+    }
+
+    @Test
+    void integersAreDecimalStrings() {
+        RedisSerializer<Object> serializer = RedisConfig.valueSerializer("binary", 0);
+        // INCR/DECR和Lua脚本可以直接运算
+        assertArrayEquals("-17".getBytes(StandardCharsets.US_ASCII), serializer.serialize(-17L));
+        assertArrayEquals("5".getBytes(StandardCharsets.US_ASCII), serializer.serialize(5));
+        assertEquals(5L, ((Number) serializer.deserialize(serializer.serialize(5))).longValue());
+    }
+
+    @Test
+    void readsJsonWrittenBeforeSwitch() {
+        byte[] json = RedisConfig.valueSerializer("json", 0).serialize(seckillProduct(7L));
+        Object value = RedisConfig.valueSerializer("binary", 0).deserialize(json);
+        assertInstanceOf(SeckillProduct.class, value);
+        assertSeckillProduct(seckillProduct(7L), (SeckillProduct) value);
+    }
+
+    @Test
+    void emptyBytesAreNull() {
+        RedisSerializer<Object> serializer = RedisConfig.valueSerializer("binary", 0);
+        assertEquals(0, serializer.serialize(null).length);
+        assertNull(serializer.deserialize(new byte[0]));
+        assertNull(serializer.deserialize(null));
+    }
+
+    private static Object roundTrip(Object value, int compressThreshold) {
+        RedisSerializer<Object> serializer = RedisConfig.valueSerializer("binary", compressThreshold);
+        byte[] bytes = serializer.serialize(value);
+        assertEquals(compressThreshold == 0 ? FORMAT_LZ4 : FORMAT_RAW, bytes[0]);
+        return serializer.deserialize(bytes);
+    }
+
+    private static Product product(Long id, String name) {
+        Product product = new Product();
+        product.setId(id);
+        product.setProductName(name);
+        product.setProductDesc("描述");
+        product.setPrice(new BigDecimal("1999.90"));
+        product.setStockCount(100);
+        product.setStatus(1);
+        product.setCreateTime(TIME);
+        return product;
+    }
+
+    private static SeckillProduct seckillProduct(Long id) {
+        SeckillProduct seckillProduct = new SeckillProduct();
+        seckillProduct.setId(id);
+        seckillProduct.setProductId(1L);
+        seckillProduct.setSeckillPrice(new BigDecimal("0.01"));
+        seckillProduct.setStockCount(10);
+        seckillProduct.setStartTime(TIME);
+        seckillProduct.setEndTime(TIME.plusHours(1));
+        seckillProduct.setStatus(1);
+        seckillProduct.setStockShards(4);
+        seckillProduct.setCreateTime(TIME.minusDays(1));
+        return seckillProduct;
+    }
+
+    private static SeckillOrder order(Long id) {
+        SeckillOrder order = new SeckillOrder();
+        order.setId(id);
+        order.setOrderNo(String.valueOf(Long.MAX_VALUE));
+        order.setUserId(Long.MAX_VALUE);
+        order.setProductId(1L);
+        order.setSeckillId(2L);
+        order.setSeckillPrice(new BigDecimal("-12345678901234567890.123"));
+        order.setStatus(0);
+        order.setCreateTime(TIME);
+        return order;
+    }
+
+    private static void assertProduct(Product expected, Product actual) {
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getProductName(), actual.getProductName());
+        assertEquals(expected.getProductDesc(), actual.getProductDesc());
+        assertEquals(expected.getPrice(), actual.getPrice());
+        assertEquals(expected.getStockCount(), actual.getStockCount());
+        assertEquals(expected.getStatus(), actual.getStatus());
+        assertEquals(expected.getCreateTime(), actual.getCreateTime());
+    }
+
+    private static void assertSeckillProduct(SeckillProduct expected, SeckillProduct actual) {
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getProductId(), actual.getProductId());
+        assertEquals(expected.getSeckillPrice(), actual.getSeckillPrice());
+        assertEquals(expected.getStockCount(), actual.getStockCount());
+        assertEquals(expected.getStartTime(), actual.getStartTime());
+        assertEquals(expected.getEndTime(), actual.getEndTime());
+        assertEquals(expected.getStatus(), actual.getStatus());
+        assertEquals(expected.getStockShards(), actual.getStockShards());
+        assertEquals(expected.getCreateTime(), actual.getCreateTime());
+    }
+
+    private static void assertOrder(SeckillOrder expected, SeckillOrder actual) {
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getOrderNo(), actual.getOrderNo());
+        assertEquals(expected.getUserId(), actual.getUserId());
+        assertEquals(expected.getProductId(), actual.getProductId());
+        assertEquals(expected.getSeckillId(), actual.getSeckillId());
+        assertEquals(expected.getSeckillPrice(), actual.getSeckillPrice());
+        assertEquals(expected.getStatus(), actual.getStatus());
+        assertEquals(expected.getCreateTime(), actual.getCreateTime());
+    }
+}
\ No newline at end of file
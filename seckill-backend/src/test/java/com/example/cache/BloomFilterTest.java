@@ -0,0 +1,83 @@
+package com.example.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BloomFilterTest {
+
+    @Test
+    void insertedIdsAreAlwaysFound() {
+        BloomFilter filter = new BloomFilter(100_000, 0.01);
+        for (long id = 1; id <= 100_000; id++) {
+            filter.put(id);
+        }
+        for (long id = 1; id <= 100_000; id++) {
+            assertTrue(filter.mightContain(id), "不能漏判: " + id);
+        }
+    }
+
+    @Test
+    void falsePositiveRateStaysNearTarget() {
+        BloomFilter filter = new BloomFilter(100_000, 0.01);
+        for (long id = 1; id <= 100_000; id++) {
+            filter.put(id);
+        }
+        int falsePositives = 0;
+        for (long id = 1_000_001; id <= 1_100_000; id++) {
+            if (filter.mightContain(id)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 2_000, "误判率过高: " + falsePositives + "/100000");
+    }
+
+    @Test
+    void extremeIds() {
+        BloomFilter filter = new BloomFilter(10, 0.01);
+        long[] ids = {0, -1, Long.MIN_VALUE, Long.MAX_VALUE};
+        for (long id : ids) {
+            assertFalse(filter.mightContain(id));
+            filter.put(id);
+        }
+        for (long id : ids) {
+            assertTrue(filter.mightContain(id));
+        }
+    }
+
+    @Test
+    void degenerateSizing() {
+        // 预计数量不大于0时按1计算，误判率很高时至少一个哈希函数
+        for (BloomFilter filter : List.of(new BloomFilter(0, 0.01), new BloomFilter(-5, 0.01), new BloomFilter(1, 0.99))) {
+            filter.put(42);
+            assertTrue(filter.mightContain(42));
+        }
+    }
+
+    @Test
+    void concurrentPutsAreNotLost() throws InterruptedException {
+        BloomFilter filter = new BloomFilter(200_000, 0.01);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            long offset = t;
+            Thread thread = new Thread(() -> {
+                // 各线程写入交错的ID，大量落在同一个long字上
+                for (long id = offset; id < 200_000; id += 4) {
+                    filter.put(id);
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        for (int i = 0; i < 200_000; i++) {
+            assertTrue(filter.mightContain(i));
+        }
+    }
+}
\ No newline at end of file
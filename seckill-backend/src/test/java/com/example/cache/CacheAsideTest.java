@@ -0,0 +1,134 @@
+package com.example.cache;
+
+import com.example.config.CacheConfig;
+import com.example.metrics.SeckillMetrics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CacheAsideTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private ThreadPoolTaskExecutor refreshExecutor;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        if (refreshExecutor != null) {
+            refreshExecutor.shutdown();
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void missAfterRejectedRefreshStillLoads() {
+        refreshExecutor = (ThreadPoolTaskExecutor) new CacheConfig().cacheRefreshExecutor();
+        RedisTemplate<String, Object> redisTemplate = mock(RedisTemplate.class);
+        ValueOperations<String, Object> valueOperations = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(redisTemplate.executePipelined(any(SessionCallback.class)))
+                // 首次未命中
+                .thenReturn(Arrays.<Object>asList(null, -2L))
+                // 命中且即将过期，触发提前刷新
+                .thenReturn(Arrays.<Object>asList("v1", 1L))
+                // 过期后再次未命中
+                .thenReturn(Arrays.<Object>asList(null, -2L));
+
+        CacheAside cacheAside = new CacheAside();
+        ReflectionTestUtils.setField(cacheAside, "redisTemplate", redisTemplate);
+        ReflectionTestUtils.setField(cacheAside, "twoLevelCache", mock(TwoLevelCache.class));
+        ReflectionTestUtils.setField(cacheAside, "metrics", mock(SeckillMetrics.class));
+        ReflectionTestUtils.setField(cacheAside, "refreshExecutor", refreshExecutor);
+        ReflectionTestUtils.setField(cacheAside, "nullTtl", Duration.ofSeconds(60));
+        ReflectionTestUtils.setField(cacheAside, "earlyRefresh", true);
+        // 让提前刷新必然触发
+        ReflectionTestUtils.setField(cacheAside, "beta", 1e12);
+
+        AtomicInteger loads = new AtomicInteger();
+        Supplier<String> loader = () -> "v" + loads.incrementAndGet();
+        assertEquals("v1", cacheAside.get("product:1", 30, TimeUnit.MINUTES, loader));
+
+        // 占满刷新线程池：2个线程各执行一个阻塞任务，队列中再放满100个
+        int capacity = refreshExecutor.getMaxPoolSize() + refreshExecutor.getQueueCapacity();
+        for (int i = 0; i < capacity; i++) {
+            refreshExecutor.execute(() -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+
+        // 刷新被拒绝，仍返回当前值
+        assertEquals("v1", cacheAside.get("product:1", 30, TimeUnit.MINUTES, loader));
+        assertEquals(1, loads.get());
+
+        // 之后的未命中不能卡在被拒绝的刷新上
+        String value = assertTimeoutPreemptively(Duration.ofSeconds(5),
+                () -> cacheAside.get("product:1", 30, TimeUnit.MINUTES, loader));
+        assertEquals("v2", value);
+    }
+
+    @Test
+    void singleFlightSharesOneExecution() throws Exception {
+        CacheAside cacheAside = new CacheAside();
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        Supplier<String> action = () -> {
+            runs.incrementAndGet();
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "body";
+        };
+
+        String[] results = new String[8];
+        Thread[] threads = new Thread[results.length];
+        for (int i = 0; i < threads.length; i++) {
+            int index = i;
+            threads[i] = new Thread(() -> results[index] = cacheAside.singleFlight("response:list", action));
+        }
+        threads[0].start();
+        started.await();
+        for (int i = 1; i < threads.length; i++) {
+            threads[i].start();
+        }
+        // 等其他线程都阻塞在同一次执行上
+        for (int i = 1; i < threads.length; i++) {
+            while (threads[i].getState() != Thread.State.WAITING) {
+                Thread.sleep(1);
+            }
+        }
+        release.countDown();
+        for (Thread thread : threads) {
+            thread.join(5000);
+        }
+
+        assertEquals(1, runs.get());
+        for (String result : results) {
+            assertEquals("body", result);
+        }
+    }
+}
\ No newline at end of file
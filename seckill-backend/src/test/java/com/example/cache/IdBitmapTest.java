@@ -0,0 +1,105 @@
+package com.example.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IdBitmapTest {
+
+    @Test
+    void rejectsIdsOutOfRange() {
+        IdBitmap bitmap = new IdBitmap(1000);
+        assertFalse(bitmap.add(-1));
+        assertFalse(bitmap.add(Long.MIN_VALUE));
+        assertFalse(bitmap.add(1001));
+        assertFalse(bitmap.add(Long.MAX_VALUE));
+        assertFalse(bitmap.contains(-1));
+        assertFalse(bitmap.contains(1001));
+
+        assertTrue(bitmap.add(0));
+        assertTrue(bitmap.add(1000));
+        assertTrue(bitmap.contains(0));
+        assertTrue(bitmap.contains(1000));
+        assertEquals(1000, bitmap.getMaxId());
+    }
+
+    @Test
+    void growsAcrossChunkBoundaries() {
+        IdBitmap bitmap = new IdBitmap(1L << 20);
+        long[] ids = {63, 64, 65_535, 65_536, 65_537, 131_071, 131_072};
+        for (long id : ids) {
+            assertTrue(bitmap.add(id));
+        }
+        for (long id : ids) {
+            assertTrue(bitmap.contains(id), "缺少ID: " + id);
+        }
+        // 同一个字和相邻块中未写入的位
+        for (long id : new long[]{62, 65, 65_534, 65_538, 131_070, 131_073}) {
+            assertFalse(bitmap.contains(id), "多出ID: " + id);
+        }
+    }
+
+    @Test
+    void sparseHighIdsDoNotAffectLowerChunks() {
+        long maxId = (1L << 30) - 1;
+        IdBitmap bitmap = new IdBitmap(maxId);
+        assertTrue(bitmap.add(maxId));
+        assertTrue(bitmap.contains(maxId));
+        assertFalse(bitmap.contains(maxId - 1));
+        assertFalse(bitmap.contains(1));
+
+        // 高位块先分配后，低位块补充分配不能丢失已有的高位块
+        assertTrue(bitmap.add(1));
+        assertTrue(bitmap.contains(1));
+        assertTrue(bitmap.contains(maxId));
+    }
+
+    @Test
+    void addIsIdempotent() {
+        IdBitmap bitmap = new IdBitmap(100);
+        assertTrue(bitmap.add(42));
+        assertTrue(bitmap.add(42));
+        assertTrue(bitmap.contains(42));
+        assertFalse(bitmap.contains(43));
+    }
+
+    @Test
+    void concurrentAddsAcrossNewChunksAreNotLost() throws InterruptedException {
+        int threadCount = 8;
+        long total = 1L << 20;
+        IdBitmap bitmap = new IdBitmap(total);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < threadCount; t++) {
+            long offset = t;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                // 各线程写入交错的ID，同时触发新块分配并竞争同一个字
+                for (long id = offset; id < total; id += threadCount) {
+                    bitmap.add(id);
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        for (long id = 0; id < total; id++) {
+            assertTrue(bitmap.contains(id), "缺少ID: " + id);
+        }
+        assertFalse(bitmap.contains(total + 1));
+    }
+}
\ No newline at end of file
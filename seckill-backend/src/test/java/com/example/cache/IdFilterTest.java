@@ -0,0 +1,161 @@
+package com.example.cache;
+
+import com.example.cache.IdFilter.IdType;
+import com.example.service.DataSourceRouter;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class IdFilterTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+
+    private final StringRedisTemplate stringRedisTemplate = mock(StringRedisTemplate.class);
+
+    private final IdFilter idFilter = newFilter(true);
+
+    @Test
+    void everythingMightExistBeforeBuild() {
+        assertTrue(idFilter.mightExist(IdType.PRODUCT, 1L));
+        assertTrue(idFilter.mightExist(IdType.USER, Long.MAX_VALUE));
+    }
+
+    @Test
+    void disabledFilterAndNullIdAreNotFiltered() throws Exception {
+        stubIds(1000);
+        idFilter.rebuild();
+        assertTrue(idFilter.mightExist(IdType.PRODUCT, null));
+
+        IdFilter disabled = newFilter(false);
+        disabled.rebuild();
+        assertTrue(disabled.mightExist(IdType.PRODUCT, 1_000_000L));
+    }
+
+    @Test
+    void filtersUnknownIdsAfterBuild() throws Exception {
+        stubIds(1000);
+        idFilter.rebuild();
+        for (long id = 2; id <= 2000; id += 2) {
+            assertTrue(idFilter.mightExist(IdType.SECKILL, id));
+        }
+        int falsePositives = 0;
+        for (long id = 1; id < 2000; id += 2) {
+            if (idFilter.mightExist(IdType.SECKILL, id)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 50, "误判率过高: " + falsePositives + "/1000");
+    }
+
+    @Test
+    void idsAboveWatermarkAreUnknown() throws Exception {
+        ReflectionTestUtils.setField(idFilter, "watermarkLag", 100L);
+        stubIds(1000);
+        idFilter.rebuild();
+        // 水位为 2000 - 100，之后的ID可能是乱序提交或广播丢失的新ID
+        for (long id = 1901; id < 2000; id += 2) {
+            assertTrue(idFilter.mightExist(IdType.USER, id));
+        }
+        assertTrue(idFilter.mightExist(IdType.USER, 2001L));
+        assertTrue(idFilter.mightExist(IdType.USER, 5_000_001L));
+        assertFalse(idFilter.mightExist(IdType.USER, 1L)
+                && idFilter.mightExist(IdType.USER, 3L)
+                && idFilter.mightExist(IdType.USER, 5L));
+    }
+
+    @Test
+    void addedIdIsVisibleAndBroadcast() throws Exception {
+        stubIds(1000);
+        idFilter.rebuild();
+        idFilter.add(IdType.PRODUCT, 1001L);
+        assertTrue(idFilter.mightExist(IdType.PRODUCT, 1001L));
+        verify(stringRedisTemplate).convertAndSend("idfilter:add", "PRODUCT:1001");
+    }
+
+    @Test
+    void messagesFromOtherInstancesAreApplied() throws Exception {
+        stubIds(1000);
+        idFilter.rebuild();
+        idFilter.onMessage(message("USER:999"), null);
+        assertTrue(idFilter.mightExist(IdType.USER, 999L));
+
+        // 格式错误的消息只记录日志
+        for (String body : new String[]{"", "USER", "USER:", "USER:abc", "ORDER:1", ":1"}) {
+            assertDoesNotThrow(() -> idFilter.onMessage(message(body), null), body);
+        }
+    }
+
+    @Test
+    void failedRebuildKeepsPreviousFilter() throws Exception {
+        stubIds(1000);
+        idFilter.rebuild();
+        doThrow(new IllegalStateException("db down")).when(jdbcTemplate)
+                .query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+
+        assertDoesNotThrow(() -> idFilter.rebuild());
+        assertTrue(idFilter.mightExist(IdType.PRODUCT, 2L));
+        assertFalse(idFilter.mightExist(IdType.PRODUCT, 1L)
+                && idFilter.mightExist(IdType.PRODUCT, 3L)
+                && idFilter.mightExist(IdType.PRODUCT, 5L));
+    }
+
+    private IdFilter newFilter(boolean enabled) {
+        DataSourceRouter dataSourceRouter = mock(DataSourceRouter.class);
+        doAnswer(invocation -> {
+            ((Runnable) invocation.getArgument(0)).run();
+            return null;
+        }).when(dataSourceRouter).onPrimary(any(Runnable.class));
+
+        IdFilter filter = new IdFilter();
+        ReflectionTestUtils.setField(filter, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(filter, "dataSourceRouter", dataSourceRouter);
+        ReflectionTestUtils.setField(filter, "stringRedisTemplate", stringRedisTemplate);
+        ReflectionTestUtils.setField(filter, "listenerContainer", mock(RedisMessageListenerContainer.class));
+        ReflectionTestUtils.setField(filter, "enabled", enabled);
+        ReflectionTestUtils.setField(filter, "expectedInsertions", 10_000L);
+        ReflectionTestUtils.setField(filter, "fpp", 0.01);
+        ReflectionTestUtils.setField(filter, "watermarkLag", 0L);
+        filter.init();
+        return filter;
+    }
+
+    /**
+     * 每张表返回 2..2*count 的偶数ID，奇数ID不存在
+     */
+    private void stubIds(long count) throws Exception {
+        AtomicLong currentId = new AtomicLong();
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getLong(1)).thenAnswer(invocation -> currentId.get());
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (long id = 2; id <= 2 * count; id += 2) {
+                currentId.set(id);
+                handler.processRow(rs);
+            }
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+    }
+
+    private static DefaultMessage message(String body) {
+        return new DefaultMessage("idfilter:add".getBytes(StandardCharsets.UTF_8), body.getBytes(StandardCharsets.UTF_8));
+    }
+}
\ No newline at end of file
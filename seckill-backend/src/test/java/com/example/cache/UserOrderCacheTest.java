@@ -0,0 +1,128 @@
+package com.example.cache;
+
+import com.example.config.RedisConfig;
+import com.example.entity.SeckillOrder;
+import com.example.metrics.SeckillMetrics;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.mockito.Mockito.mock;
+
+/**
+ * 新订单批量追加到用户订单列表缓存
+ */
+class UserOrderCacheTest {
+
+    private static final LocalDateTime BASE_TIME = LocalDateTime.of(2026, 1, 1, 10, 0);
+
+    private static RedisServer redisServer;
+
+    private static LettuceConnectionFactory connectionFactory;
+
+    private static StringRedisTemplate redis;
+
+    private final UserOrderCache cache = new UserOrderCache();
+
+    @BeforeAll
+    static void startRedis() throws IOException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        redisServer = new RedisServer(port);
+        redisServer.start();
+        connectionFactory = new LettuceConnectionFactory("localhost", port);
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        redis = new StringRedisTemplate(connectionFactory);
+    }
+
+    @AfterAll
+    static void stopRedis() throws IOException {
+        connectionFactory.destroy();
+        redisServer.stop();
+    }
+
+    @BeforeEach
+    void setUp() {
+        redis.execute((RedisCallback<Object>) connection -> {
+            connection.serverCommands().flushAll();
+            connection.scriptingCommands().scriptFlush();
+            return null;
+        });
+        RedisConfig redisConfig = new RedisConfig();
+        ReflectionTestUtils.setField(redisConfig, "serializer", "json");
+        ReflectionTestUtils.setField(cache, "redisTemplate", redisConfig.redisTemplate(connectionFactory));
+        ReflectionTestUtils.setField(cache, "stringRedisTemplate", redis);
+        ReflectionTestUtils.setField(cache, "metrics", mock(SeckillMetrics.class));
+        ReflectionTestUtils.setField(cache, "cacheSize", 3);
+        ReflectionTestUtils.setField(cache, "ttl", Duration.ofMinutes(10));
+    }
+
+    @Test
+    void batchAppendsToCachedAndPendingUsers() {
+        // 用户1已缓存，用户2未缓存
+        assertEquals(List.of(1L), ids(cache.page(1L, null, 10, () -> List.of(order(1, 1L)))));
+
+        // 脚本尚未缓存在Redis中，第一批改用EVAL执行
+        cache.append(Arrays.asList(order(2, 1L), order(3, 2L), order(4, 1L)));
+        cache.append(Arrays.asList(order(5, 1L), order(6, 2L)));
+
+        // 超过上限时移除最早的订单，缓存不再完整
+        assertEquals(Arrays.asList(5L, 4L, 2L), ids(cache.page(1L, null, 3, UserOrderCacheTest::notLoaded)));
+        assertNull(cache.page(1L, null, 10, UserOrderCacheTest::notLoaded));
+
+        // 未缓存用户的订单在加载时合并
+        assertEquals(List.of(), cache.page(2L, null, 10, Collections::emptyList));
+        assertEquals(Arrays.asList(6L, 3L), ids(cache.page(2L, null, 10, UserOrderCacheTest::notLoaded)));
+    }
+
+    @Test
+    void repeatedAppendIsIdempotent() {
+        cache.page(1L, null, 10, Collections::emptyList);
+        List<SeckillOrder> orders = Arrays.asList(order(1, 1L), order(2, 1L));
+        cache.append(orders);
+        cache.append(orders);
+        assertEquals(Arrays.asList(2L, 1L), ids(cache.page(1L, null, 10, UserOrderCacheTest::notLoaded)));
+    }
+
+    private static SeckillOrder order(long id, Long userId) {
+        SeckillOrder order = new SeckillOrder("NO" + id, userId, 1L, new BigDecimal("9.90"));
+        order.setId(id);
+        order.setSeckillId(1L);
+        order.setCreateTime(BASE_TIME.plusSeconds(id));
+        return order;
+    }
+
+    private static List<SeckillOrder> notLoaded() {
+        return fail("用户已缓存，不应回源加载");
+    }
+
+    private static List<Long> ids(List<SeckillOrder> orders) {
+        List<Long> ids = new ArrayList<>();
+        for (SeckillOrder order : orders) {
+            ids.add(order.getId());
+        }
+        return ids;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,91 @@
+package com.example.cache;
+
+import com.example.service.DataSourceRouter;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class UserRegistryTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+
+    private final UserRegistry registry = newRegistry();
+
+    @Test
+    void unknownBeforeSync() {
+        assertNull(registry.exists(1L));
+        assertNull(registry.exists(null));
+    }
+
+    @Test
+    void onlyIdsBelowWatermarkAreDefinitelyMissing() {
+        // 偶数ID 2..2000 已注册，水位为 2000 - 100
+        stubIds(1000);
+        registry.sync();
+
+        assertEquals(Boolean.TRUE, registry.exists(2L));
+        assertEquals(Boolean.TRUE, registry.exists(2000L));
+        assertEquals(Boolean.FALSE, registry.exists(1L));
+        assertEquals(Boolean.FALSE, registry.exists(1899L));
+        // 水位之上的ID可能乱序提交或漏收了广播，交给调用方回源
+        assertNull(registry.exists(1901L));
+        assertNull(registry.exists(2001L));
+    }
+
+    @Test
+    void broadcastIdsAreAddedWithoutMovingWatermark() {
+        stubIds(1000);
+        registry.sync();
+
+        registry.addLocal(1001L);
+        registry.addLocal(5001L);
+        assertEquals(Boolean.TRUE, registry.exists(1001L));
+        assertEquals(Boolean.TRUE, registry.exists(5001L));
+        assertNull(registry.exists(5003L));
+    }
+
+    private UserRegistry newRegistry() {
+        DataSourceRouter dataSourceRouter = mock(DataSourceRouter.class);
+        doAnswer(invocation -> ((Supplier<?>) invocation.getArgument(0)).get())
+                .when(dataSourceRouter).onPrimary(ArgumentMatchers.<Supplier<Object>>any());
+
+        UserRegistry registry = new UserRegistry();
+        ReflectionTestUtils.setField(registry, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(registry, "dataSourceRouter", dataSourceRouter);
+        ReflectionTestUtils.setField(registry, "stringRedisTemplate", mock(StringRedisTemplate.class));
+        ReflectionTestUtils.setField(registry, "listenerContainer", mock(RedisMessageListenerContainer.class));
+        ReflectionTestUtils.setField(registry, "enabled", true);
+        ReflectionTestUtils.setField(registry, "batchSize", 10000);
+        ReflectionTestUtils.setField(registry, "maxUserId", 1_000_000L);
+        ReflectionTestUtils.setField(registry, "watermarkLag", 100L);
+        registry.init();
+        return registry;
+    }
+
+    /**
+     * 一批返回 2..2*count 的偶数ID
+     */
+    private void stubIds(long count) {
+        List<Long> ids = new ArrayList<>();
+        for (long id = 2; id <= 2 * count; id += 2) {
+            ids.add(id);
+        }
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), any(), any())).thenReturn(ids);
+    }
+}
\ No newline at end of file
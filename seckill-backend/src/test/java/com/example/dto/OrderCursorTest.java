@@ -0,0 +1,57 @@
+package com.example.dto;
+
+import com.example.entity.SeckillOrder;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OrderCursorTest {
+
+    @Test
+    void formatAndParseRoundTrip() {
+        SeckillOrder order = new SeckillOrder();
+        order.setId(1_234_567_890_123L);
+        order.setCreateTime(LocalDateTime.of(2024, 5, 1, 12, 30, 45, 123_000_000));
+
+        OrderCursor cursor = OrderCursor.of(order);
+        OrderCursor parsed = OrderCursor.parse(cursor.toString());
+        assertEquals(cursor.toString(), parsed.toString());
+        assertEquals(order.getId(), parsed.getId());
+        assertEquals(order.getCreateTime(), parsed.getCreateTime());
+    }
+
+    @Test
+    void emptyCursorMeansFirstPage() {
+        assertNull(OrderCursor.parse(null));
+        assertNull(OrderCursor.parse(""));
+        assertNull(OrderCursor.parse("   "));
+    }
+
+    @Test
+    void malformedCursorIsRejected() {
+        String[] cursors = {
+                "abc", "123", "_", "1_", "_1", "1__2", "1_2_3", "a_1", "1_b",
+                " 1_2", "1_2 ", "1.5_2", "9223372036854775808_1", "1_9223372036854775808"
+        };
+        for (String cursor : cursors) {
+            IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> OrderCursor.parse(cursor));
+            assertTrue(e.getMessage().contains(cursor), cursor);
+        }
+    }
+
+    @Test
+    void ordersAfterCursorAreOlderOrSameTimeWithSmallerId() {
+        OrderCursor cursor = new OrderCursor(1000, 50);
+        assertTrue(cursor.isBefore(999, 100));
+        assertTrue(cursor.isBefore(1000, 49));
+        assertFalse(cursor.isBefore(1000, 50));
+        assertFalse(cursor.isBefore(1000, 51));
+        assertFalse(cursor.isBefore(1001, 1));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,86 @@
+package com.example.metrics;
+
+import com.example.common.SeckillStatus;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class SeckillMetricsTest {
+
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+
+    private final SeckillMetrics metrics = new SeckillMetrics();
+
+    SeckillMetricsTest() {
+        ReflectionTestUtils.setField(metrics, "registry", registry);
+    }
+
+    @Test
+    void keyPatternCollapsesNumericSegments() {
+        assertEquals("seckill:product:{id}", SeckillMetrics.keyPattern("seckill:product:123"));
+        assertEquals("orders:user:{id}:page:{id}", SeckillMetrics.keyPattern("orders:user:42:page:0"));
+        assertEquals("seckill:list", SeckillMetrics.keyPattern("seckill:list"));
+        // 只有整段都是数字才归并
+        assertEquals("product:v2:{id}", SeckillMetrics.keyPattern("product:v2:7"));
+        assertEquals("product:-1", SeckillMetrics.keyPattern("product:-1"));
+        assertEquals("a::{id}:", SeckillMetrics.keyPattern("a::1:"));
+        assertEquals("{id}", SeckillMetrics.keyPattern("5"));
+        assertEquals("", SeckillMetrics.keyPattern(""));
+    }
+
+    @Test
+    void cacheAccessCountsByPatternLevelAndResult() {
+        metrics.cacheAccess("seckill:product:1", SeckillMetrics.LEVEL_LOCAL, true);
+        metrics.cacheAccess("seckill:product:2", SeckillMetrics.LEVEL_LOCAL, true);
+        metrics.cacheAccess("seckill:product:3", SeckillMetrics.LEVEL_LOCAL, false);
+        metrics.cacheAccess("seckill:product:3", SeckillMetrics.LEVEL_REDIS, true);
+
+        assertEquals(2, cacheCount("local", "hit"));
+        assertEquals(1, cacheCount("local", "miss"));
+        assertEquals(1, cacheCount("redis", "hit"));
+        assertNull(registry.find("cache.requests").tags("level", "redis", "result", "miss").counter());
+    }
+
+    @Test
+    void phaseRecordsTimeAndReturnsResult() {
+        assertEquals("ok", metrics.phase(SeckillMetrics.PHASE_STOCK_RESERVE, () -> "ok"));
+        metrics.phase(SeckillMetrics.PHASE_STOCK_RESERVE, () -> { });
+        Timer timer = registry.find("seckill.phase").tag("phase", "stock_reserve").timer();
+        assertEquals(2, timer.count());
+    }
+
+    @Test
+    void requestOutcomeIsLowerCaseStatusOrError() {
+        metrics.recordRequest(metrics.start(), SeckillMetrics.ENDPOINT_CLASSIC, SeckillStatus.SOLD_OUT);
+        metrics.recordRequest(metrics.start(), SeckillMetrics.ENDPOINT_CLASSIC, SeckillStatus.SOLD_OUT);
+        metrics.recordRequest(metrics.start(), SeckillMetrics.ENDPOINT_REACTIVE, null);
+
+        assertEquals(2, requestCount("classic", "sold_out"));
+        assertEquals(1, requestCount("reactive", "error"));
+    }
+
+    @Test
+    void stockOversellAccumulatesPerTable() {
+        metrics.stockOversell("tb_product", 2);
+        metrics.stockOversell("tb_product", 3);
+        metrics.stockOversell("tb_seckill_product", 1);
+
+        assertEquals(5.0, registry.get("seckill.stock.oversell").tag("table", "tb_product").counter().count());
+        assertEquals(1.0, registry.get("seckill.stock.oversell").tag("table", "tb_seckill_product").counter().count());
+    }
+
+    private long cacheCount(String level, String result) {
+        return (long) registry.get("cache.requests")
+                .tags("cache", "seckill:product:{id}", "level", level, "result", result)
+                .counter().count();
+    }
+
+    private long requestCount(String endpoint, String outcome) {
+        return registry.get("seckill.requests").tags("endpoint", endpoint, "outcome", outcome).timer().count();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,107 @@
+package com.example.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OrderNoGeneratorTest {
+
+    private static final long SEQUENCE_MASK = 4095;
+
+    @Test
+    void idsAreStrictlyIncreasingAcrossSequenceRollover() {
+        OrderNoGenerator generator = new OrderNoGenerator(3);
+        long prev = generator.nextId(7L);
+        // 远超单个毫秒的4096个序列号，必然发生借用下一毫秒
+        for (int i = 0; i < 20_000; i++) {
+            long id = generator.nextId(7L);
+            assertTrue(id > prev, "订单号必须严格递增");
+            assertEquals(3, worker(id));
+            assertEquals(7, slot(id));
+            prev = id;
+        }
+    }
+
+    @Test
+    void exhaustedSequenceBorrowsNextMillisecond() {
+        OrderNoGenerator generator = new OrderNoGenerator(0);
+        long future = System.currentTimeMillis() - OrderNoGenerator.EPOCH + 60_000;
+        setState(generator, future, SEQUENCE_MASK);
+
+        long id = generator.nextId(1L);
+
+        assertEquals(future + 1, timestamp(id));
+        assertEquals(0, sequence(id));
+    }
+
+    @Test
+    void clockRegressionKeepsLastTimestamp() {
+        OrderNoGenerator generator = new OrderNoGenerator(0);
+        // 上次使用的时间戳比当前时钟晚一分钟，相当于时钟回拨
+        long future = System.currentTimeMillis() - OrderNoGenerator.EPOCH + 60_000;
+        setState(generator, future, 5);
+
+        long first = generator.nextId(1L);
+        long second = generator.nextId(1L);
+
+        assertEquals(future, timestamp(first));
+        assertEquals(6, sequence(first));
+        assertEquals(future, timestamp(second));
+        assertEquals(7, sequence(second));
+        assertTrue(second > first);
+    }
+
+    @Test
+    void slotUsesLowBitsOfUserId() {
+        OrderNoGenerator generator = new OrderNoGenerator(0);
+        String orderNo = generator.nextOrderNo(32L + 9);
+        assertEquals(9, OrderNoGenerator.parseSlot(orderNo));
+
+        long before = System.currentTimeMillis();
+        long created = OrderNoGenerator.parseTimestamp(generator.nextOrderNo(1L));
+        assertTrue(created >= before - 1 && created <= System.currentTimeMillis());
+    }
+
+    @Test
+    void parseRejectsForeignOrderNumbers() {
+        assertEquals(-1, OrderNoGenerator.parseSlot(null));
+        assertEquals(-1, OrderNoGenerator.parseSlot(""));
+        assertEquals(-1, OrderNoGenerator.parseSlot("-1"));
+        assertEquals(-1, OrderNoGenerator.parseSlot("12a"));
+        assertEquals(-1, OrderNoGenerator.parseTimestamp("12345678901234567890"));
+        // 19位但超出long范围
+        assertEquals(-1, OrderNoGenerator.parseTimestamp("9999999999999999999"));
+    }
+
+    @Test
+    void workerIdMustFitInFiveBits() {
+        assertThrows(IllegalArgumentException.class, () -> new OrderNoGenerator(-1));
+        assertThrows(IllegalArgumentException.class, () -> new OrderNoGenerator(OrderNoGenerator.MAX_WORKER_ID + 1));
+    }
+
+    private static void setState(OrderNoGenerator generator, long timestamp, long sequence) {
+        AtomicLong state = (AtomicLong) ReflectionTestUtils.getField(generator, "state");
+        state.set((timestamp << 12) | sequence);
+    }
+
+    private static long timestamp(long id) {
+        return id >>> 22;
+    }
+
+    private static long worker(long id) {
+        return (id >>> 17) & 31;
+    }
+
+    private static long sequence(long id) {
+        return (id >>> 5) & SEQUENCE_MASK;
+    }
+
+    private static long slot(long id) {
+        return id & 31;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,159 @@
+package com.example.service;
+
+import com.example.common.SeckillStatus;
+import com.example.config.RedisConfig;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * lua/seckill.lua 和 lua/seckill_stock.lua 的返回值
+ */
+class SeckillScriptTest {
+
+    private static final String STOCK = "seckill:stock:{1}";
+
+    private static final String BUYERS = "seckill:buyers:{1}";
+
+    private static final String BUYERS_SET = "seckill:buyers:set:{1}";
+
+    private static final long CLAIMED = 3;
+
+    private static RedisServer redisServer;
+
+    private static LettuceConnectionFactory connectionFactory;
+
+    private static StringRedisTemplate redis;
+
+    private final DefaultRedisScript<Long> seckillScript = new RedisConfig().seckillScript();
+
+    private final DefaultRedisScript<Long> stockScript = new RedisConfig().seckillStockScript();
+
+    private final long now = System.currentTimeMillis();
+
+    @BeforeAll
+    static void startRedis() throws IOException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        redisServer = new RedisServer(port);
+        redisServer.start();
+        connectionFactory = new LettuceConnectionFactory("localhost", port);
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        redis = new StringRedisTemplate(connectionFactory);
+    }
+
+    @AfterAll
+    static void stopRedis() throws IOException {
+        connectionFactory.destroy();
+        redisServer.stop();
+    }
+
+    @BeforeEach
+    void flush() {
+        redis.execute((RedisCallback<Object>) connection -> {
+            connection.serverCommands().flushAll();
+            return null;
+        });
+    }
+
+    @Test
+    void notPreloaded() {
+        assertEquals(SeckillStatus.NOT_PRELOADED, reserve(now, "7", "bit", "0"));
+        assertFalse(redis.opsForValue().getBit(BUYERS, 7));
+    }
+
+    @Test
+    void notStartedAndEnded() {
+        redis.opsForValue().set(STOCK, "1");
+        assertEquals(SeckillStatus.NOT_STARTED, reserve(now - 120_000, "7", "bit", "0"));
+        assertEquals(SeckillStatus.ENDED, reserve(now + 120_000, "7", "bit", "0"));
+        assertEquals("1", redis.opsForValue().get(STOCK));
+    }
+
+    @Test
+    void successThenRepeated() {
+        redis.opsForValue().set(STOCK, "2");
+        assertEquals(SeckillStatus.SUCCESS, reserve(now, "7", "bit", "0"));
+        assertEquals("1", redis.opsForValue().get(STOCK));
+        assertTrue(redis.opsForValue().getBit(BUYERS, 7));
+        // 购买记录在活动结束时过期
+        Long ttl = redis.getExpire(BUYERS);
+        assertTrue(ttl > 0 && ttl <= 60);
+
+        assertEquals(SeckillStatus.REPEATED, reserve(now, "7", "bit", "0"));
+        assertEquals("1", redis.opsForValue().get(STOCK));
+    }
+
+    @Test
+    void setBuyers() {
+        redis.opsForValue().set(STOCK, "5");
+        assertEquals(SeckillStatus.SUCCESS, reserve(now, "123456789012", "set", "0"));
+        assertTrue(redis.opsForSet().isMember(BUYERS_SET, "123456789012"));
+        assertEquals(SeckillStatus.REPEATED, reserve(now, "123456789012", "set", "0"));
+        assertEquals("4", redis.opsForValue().get(STOCK));
+    }
+
+    @Test
+    void soldOutWithoutClaim() {
+        redis.opsForValue().set(STOCK, "0");
+        assertEquals(SeckillStatus.SOLD_OUT, reserve(now, "7", "bit", "0"));
+        assertEquals("0", redis.opsForValue().get(STOCK));
+        assertFalse(redis.opsForValue().getBit(BUYERS, 7));
+    }
+
+    @Test
+    void emptyShardClaimsBuyer() {
+        redis.opsForValue().set(STOCK, "0");
+        assertEquals(CLAIMED, execute(now, "7", "bit", "1"));
+        assertEquals("0", redis.opsForValue().get(STOCK));
+        assertTrue(redis.opsForValue().getBit(BUYERS, 7));
+        // 占用期间同一用户的请求视为重复购买
+        assertEquals(SeckillStatus.REPEATED, reserve(now, "7", "bit", "1"));
+    }
+
+    @Test
+    void stockScriptTakesOneUnit() {
+        assertEquals(0L, redis.execute(stockScript, List.of(STOCK)));
+        redis.opsForValue().set(STOCK, "1");
+        assertEquals(1L, redis.execute(stockScript, List.of(STOCK)));
+        assertEquals(0L, redis.execute(stockScript, List.of(STOCK)));
+        assertEquals("0", redis.opsForValue().get(STOCK));
+    }
+
+    @Test
+    void scriptCodesMatchStatus() {
+        for (long code = -4; code <= 1; code++) {
+            assertEquals(code, SeckillStatus.of(code).getCode());
+        }
+        assertEquals(SeckillStatus.FAILED, SeckillStatus.of(CLAIMED));
+        assertEquals(SeckillStatus.FAILED, SeckillStatus.of(null));
+    }
+
+    private SeckillStatus reserve(long at, String member, String mode, String claim) {
+        return SeckillStatus.of(execute(at, member, mode, claim));
+    }
+
+    private Long execute(long at, String member, String mode, String claim) {
+        String buyers = "bit".equals(mode) ? BUYERS : BUYERS_SET;
+        return redis.execute(seckillScript, Arrays.asList(STOCK, buyers),
+                String.valueOf(at), String.valueOf(now - 60_000), String.valueOf(now + 60_000), member, mode, claim);
+    }
+}
\ No newline at end of file
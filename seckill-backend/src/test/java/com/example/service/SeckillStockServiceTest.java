@@ -0,0 +1,138 @@
+package com.example.service;
+
+import com.example.config.RedisConfig;
+import com.example.entity.SeckillProduct;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * 旧版库存key布局的迁移
+ */
+class SeckillStockServiceTest {
+
+    private static RedisServer redisServer;
+
+    private static LettuceConnectionFactory connectionFactory;
+
+    private static StringRedisTemplate redis;
+
+    private final SeckillStockService stockService = new SeckillStockService();
+
+    @BeforeAll
+    static void startRedis() throws IOException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        redisServer = new RedisServer(port);
+        redisServer.start();
+        connectionFactory = new LettuceConnectionFactory("localhost", port);
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        redis = new StringRedisTemplate(connectionFactory);
+    }
+
+    @AfterAll
+    static void stopRedis() throws IOException {
+        connectionFactory.destroy();
+        redisServer.stop();
+    }
+
+    @BeforeEach
+    void setUp() {
+        redis.execute((RedisCallback<Object>) connection -> {
+            connection.serverCommands().flushAll();
+            return null;
+        });
+        ReflectionTestUtils.setField(stockService, "stringRedisTemplate", redis);
+        ReflectionTestUtils.setField(stockService, "seckillScript", new RedisConfig().seckillScript());
+        ReflectionTestUtils.setField(stockService, "seckillStockScript", new RedisConfig().seckillStockScript());
+        ReflectionTestUtils.setField(stockService, "soldOutRegistry", mock(SoldOutRegistry.class));
+        ReflectionTestUtils.setField(stockService, "defaultShards", 1);
+        ReflectionTestUtils.setField(stockService, "bitmapMaxUserId", 1000L);
+    }
+
+    @Test
+    void movesShardedStockAndBuyers() {
+        SeckillProduct seckillProduct = seckillProduct(2);
+        redis.opsForValue().set("seckill:stock:1:0", "3");
+        redis.opsForValue().set("seckill:stock:1:1", "2");
+        redis.opsForValue().setBit("seckill:buyers:1", 7, true);
+        redis.opsForValue().setBit("seckill:buyers:1", 10, true);
+        redis.opsForSet().add("seckill:buyers:set:1", "123456789012");
+
+        assertTrue(stockService.migrateLegacyKeys(seckillProduct));
+
+        assertEquals("3", redis.opsForValue().get("seckill:stock:{1:0}"));
+        assertEquals("2", redis.opsForValue().get("seckill:stock:{1:1}"));
+        assertTrue(redis.getExpire("seckill:stock:{1:0}") > 0);
+        // 位图偏移量改为 userId / 分片数
+        assertTrue(redis.opsForValue().getBit("seckill:buyers:{1:1}", 3));
+        assertTrue(redis.opsForValue().getBit("seckill:buyers:{1:0}", 5));
+        assertTrue(redis.getExpire("seckill:buyers:{1:1}") > 0);
+        assertTrue(stockService.hasPurchased(7L, seckillProduct));
+        assertTrue(stockService.hasPurchased(10L, seckillProduct));
+        assertTrue(stockService.hasPurchased(123456789012L, seckillProduct));
+        assertFalse(stockService.hasPurchased(8L, seckillProduct));
+
+        assertFalse(redis.hasKey("seckill:stock:1:0"));
+        assertFalse(redis.hasKey("seckill:stock:1:1"));
+        assertFalse(redis.hasKey("seckill:buyers:1"));
+        assertFalse(redis.hasKey("seckill:buyers:set:1"));
+        // 已迁移过不再重复执行
+        assertFalse(stockService.migrateLegacyKeys(seckillProduct));
+    }
+
+    @Test
+    void singleShard() {
+        SeckillProduct seckillProduct = seckillProduct(1);
+        redis.opsForValue().set("seckill:stock:1", "4");
+        redis.opsForValue().setBit("seckill:buyers:1", 999, true);
+
+        assertTrue(stockService.migrateLegacyKeys(seckillProduct));
+        assertEquals("4", redis.opsForValue().get("seckill:stock:{1}"));
+        assertTrue(stockService.hasPurchased(999L, seckillProduct));
+    }
+
+    @Test
+    void existingNewKeyWins() {
+        SeckillProduct seckillProduct = seckillProduct(1);
+        redis.opsForValue().set("seckill:stock:1", "4");
+        redis.opsForValue().set("seckill:stock:{1}", "9");
+
+        assertTrue(stockService.migrateLegacyKeys(seckillProduct));
+        assertEquals("9", redis.opsForValue().get("seckill:stock:{1}"));
+        assertFalse(redis.hasKey("seckill:stock:1"));
+    }
+
+    @Test
+    void nothingToMigrate() {
+        assertFalse(stockService.migrateLegacyKeys(seckillProduct(2)));
+        assertFalse(redis.hasKey("seckill:stock:{1:0}"));
+    }
+
+    private static SeckillProduct seckillProduct(int shards) {
+        SeckillProduct seckillProduct = new SeckillProduct();
+        seckillProduct.setId(1L);
+        seckillProduct.setStockShards(shards);
+        seckillProduct.setStartTime(LocalDateTime.now().minusMinutes(1));
+        seckillProduct.setEndTime(LocalDateTime.now().plusHours(1));
+        return seckillProduct;
+    }
+}
\ No newline at end of file
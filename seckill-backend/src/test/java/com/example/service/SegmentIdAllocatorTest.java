@@ -0,0 +1,128 @@
+package com.example.service;
+
+import com.example.exception.BusinessException;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SegmentIdAllocatorTest {
+
+    private static final String TAG = "order";
+
+    private static final int STEP = 100;
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+
+    /**
+     * 模拟tb_id_segment中该业务的max_id
+     */
+    private final AtomicLong dbMaxId = new AtomicLong();
+
+    private final AtomicInteger fetches = new AtomicInteger();
+
+    @Test
+    void concurrentSegmentSwitchNeitherDuplicatesNorSkips() throws Exception {
+        SegmentIdAllocator allocator = newAllocator();
+        int threadCount = 16;
+        int perThread = 5000;
+        ConcurrentHashMap<Long, Boolean> ids = new ConcurrentHashMap<>();
+        AtomicInteger duplicates = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < threadCount; t++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < perThread; i++) {
+                    if (ids.putIfAbsent(allocator.nextId(TAG), Boolean.TRUE) != null) {
+                        duplicates.incrementAndGet();
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        long total = (long) threadCount * perThread;
+        assertEquals(0, duplicates.get());
+        assertEquals(total, ids.size());
+        // 号段切换时越界的游标不消耗ID，分配结果连续
+        for (long id = 1; id <= total; id++) {
+            assertTrue(ids.containsKey(id), "缺少ID: " + id);
+        }
+        // 每个号段只取一次
+        assertEquals(total / STEP, fetches.get());
+    }
+
+    @Test
+    void continuesFromPersistedMaxId() throws Exception {
+        // 模拟重启：数据库中已经分配到5000
+        dbMaxId.set(5000);
+        SegmentIdAllocator allocator = newAllocator();
+        assertEquals(5001, allocator.nextId(TAG));
+        for (int i = 0; i < STEP - 1; i++) {
+            allocator.nextId(TAG);
+        }
+        assertEquals(1, fetches.get());
+        assertEquals(5101, allocator.nextId(TAG));
+        assertEquals(2, fetches.get());
+    }
+
+    @Test
+    void unknownTagFails() throws Exception {
+        SegmentIdAllocator allocator = newAllocator();
+        assertThrows(BusinessException.class, () -> allocator.nextId("missing"));
+        // 失败不影响其他业务
+        assertEquals(1, allocator.nextId(TAG));
+    }
+
+    @SuppressWarnings("unchecked")
+    private SegmentIdAllocator newAllocator() throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getLong("max_id")).thenAnswer(invocation -> dbMaxId.get());
+        when(rs.getInt("step")).thenReturn(STEP);
+        when(jdbcTemplate.update(anyString(), eq(TAG))).thenAnswer(invocation -> {
+            dbMaxId.addAndGet(STEP);
+            fetches.incrementAndGet();
+            return 1;
+        });
+        when(jdbcTemplate.update(anyString(), eq("missing"))).thenReturn(0);
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), eq(TAG))).thenAnswer(invocation -> {
+            RowMapper<Object> mapper = invocation.getArgument(1);
+            return List.of(mapper.mapRow(rs, 0));
+        });
+
+        SegmentIdAllocator allocator = new SegmentIdAllocator();
+        ReflectionTestUtils.setField(allocator, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(allocator, "transactionManager", mock(PlatformTransactionManager.class));
+        allocator.init();
+        return allocator;
+    }
+}
\ No newline at end of file
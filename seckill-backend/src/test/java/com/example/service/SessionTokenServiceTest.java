@@ -0,0 +1,152 @@
+package com.example.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SessionTokenServiceTest {
+
+    private static final byte[] KEY = new byte[32];
+
+    static {
+        for (int i = 0; i < KEY.length; i++) {
+            KEY[i] = (byte) i;
+        }
+    }
+
+    private static final String SECRET = Base64.getEncoder().encodeToString(KEY);
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    @Test
+    void issuedTokenVerifies() {
+        SessionTokenService service = newService(SECRET, true);
+        String token = service.issue(123456789L);
+        assertEquals(66, token.length());
+        assertEquals(123456789L, service.verify(token));
+        assertEquals(7200, service.getTtlSeconds());
+    }
+
+    @Test
+    void tamperedPayloadIsRejected() {
+        SessionTokenService service = newService(SECRET, true);
+        String token = service.issue(1L);
+        String signature = token.substring(token.indexOf('.') + 1);
+        // 把签名挪到其他用户的载荷上
+        String forged = ENCODER.encodeToString(payload(2L, nowSeconds() + 3600)) + "." + signature;
+        assertNull(service.verify(forged));
+    }
+
+    @Test
+    void tokenSignedWithAnotherKeyIsRejected() {
+        byte[] otherKey = KEY.clone();
+        otherKey[0] ^= 1;
+        SessionTokenService other = newService(Base64.getEncoder().encodeToString(otherKey), true);
+        assertNull(newService(SECRET, true).verify(other.issue(1L)));
+    }
+
+    @Test
+    void expiredTokenIsRejected() throws Exception {
+        SessionTokenService service = newService(SECRET, true);
+        assertNull(service.verify(sign(payload(1L, nowSeconds() - 1))));
+        assertEquals(1L, service.verify(sign(payload(1L, nowSeconds() + 60))));
+
+        ReflectionTestUtils.setField(service, "ttl", Duration.ofSeconds(-1));
+        assertNull(service.verify(service.issue(1L)));
+    }
+
+    @Test
+    void signatureIsComparedInFull() throws Exception {
+        SessionTokenService service = newService(SECRET, true);
+        byte[] payload = payload(1L, nowSeconds() + 60);
+        byte[] signature = hmac(payload);
+        String encodedPayload = ENCODER.encodeToString(payload) + ".";
+
+        // 只差最后一个字节、截短、加长的签名都必须拒绝
+        byte[] lastByte = signature.clone();
+        lastByte[lastByte.length - 1] ^= 1;
+        assertNull(service.verify(encodedPayload + ENCODER.encodeToString(lastByte)));
+        assertNull(service.verify(encodedPayload + ENCODER.encodeToString(Arrays.copyOf(signature, 16))));
+        assertNull(service.verify(encodedPayload + ENCODER.encodeToString(Arrays.copyOf(signature, 33))));
+        assertNull(service.verify(encodedPayload));
+        assertEquals(1L, service.verify(encodedPayload + ENCODER.encodeToString(signature)));
+    }
+
+    @Test
+    void malformedTokensAreRejected() throws Exception {
+        SessionTokenService service = newService(SECRET, true);
+        String valid = service.issue(1L);
+        String[] tokens = {
+                null, "", ".", "abc", ".abc", valid.replace('.', '!'),
+                "!!!." + valid.substring(valid.indexOf('.') + 1),
+                valid.substring(0, valid.indexOf('.') + 1) + "***",
+                // 载荷长度不是16字节
+                sign(new byte[15]), sign(new byte[17])
+        };
+        for (String token : tokens) {
+            assertNull(service.verify(token), String.valueOf(token));
+        }
+    }
+
+    @Test
+    void requiredWithoutSecretFailsToStart() {
+        assertThrows(IllegalStateException.class, () -> newService("", true));
+        assertThrows(IllegalStateException.class, () -> newService("  ", true));
+        assertThrows(IllegalStateException.class, () -> newService(null, true));
+    }
+
+    @Test
+    void optionalWithoutSecretUsesRandomKey() {
+        SessionTokenService first = newService("", false);
+        SessionTokenService second = newService("", false);
+        String token = first.issue(1L);
+        assertEquals(1L, first.verify(token));
+        // 随机密钥在实例之间不通用
+        assertNull(second.verify(token));
+    }
+
+    @Test
+    void shortSecretIsRejected() {
+        String shortSecret = Base64.getEncoder().encodeToString(new byte[31]);
+        assertThrows(IllegalStateException.class, () -> newService(shortSecret, true));
+        assertNotNull(newService(" " + SECRET + "\n", true).issue(1L));
+    }
+
+    private static SessionTokenService newService(String secret, boolean required) {
+        SessionTokenService service = new SessionTokenService();
+        ReflectionTestUtils.setField(service, "secret", secret);
+        ReflectionTestUtils.setField(service, "required", required);
+        ReflectionTestUtils.setField(service, "ttl", Duration.ofHours(2));
+        service.init();
+        return service;
+    }
+
+    private static long nowSeconds() {
+        return System.currentTimeMillis() / 1000;
+    }
+
+    private static byte[] payload(long userId, long expiresAt) {
+        return ByteBuffer.allocate(16).putLong(userId).putLong(expiresAt).array();
+    }
+
+    private static String sign(byte[] payload) throws Exception {
+        return ENCODER.encodeToString(payload) + "." + ENCODER.encodeToString(hmac(payload));
+    }
+
+    private static byte[] hmac(byte[] payload) throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(KEY, "HmacSHA256"));
+        return mac.doFinal(payload);
+    }
+}
\ No newline at end of file
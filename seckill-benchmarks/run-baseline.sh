@@ -0,0 +1,13 @@
+#!/bin/sh
+# 运行全部基准并生成JSON报告，用于不同版本之间对比
+# 用法: ./run-baseline.sh [报告名称] [额外的JMH参数...]
+# 例如: ./run-baseline.sh v1.1 -f 2
+set -e
+
+cd "$(dirname "$0")"
+NAME=${1:-$(git rev-parse --short HEAD 2>/dev/null || date +%Y%m%d%H%M%S)}
+[ $# -gt 0 ] && shift
+
+mkdir -p results
+java -jar target/benchmarks.jar -rf json -rff "results/baseline-$NAME.json" "$@" | tee "results/baseline-$NAME.txt"
+echo "报告已写入 results/baseline-$NAME.json"
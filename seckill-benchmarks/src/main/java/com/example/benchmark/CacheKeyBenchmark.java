@@ -0,0 +1,57 @@
+package com.example.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 缓存key拼接：代码中使用的字符串拼接与 String.format 的对比
+ * 秒杀请求每次要拼接活动、库存分片和购买记录的key
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CacheKeyBenchmark {
+
+    @Benchmark
+    public String seckillProductKey() {
+        return "seckill:product:" + id();
+    }
+
+    @Benchmark
+    public String stockShardKey() {
+        long id = id();
+        return "seckill:stock:{" + id + ":" + (id & 7) + "}";
+    }
+
+    @Benchmark
+    public String seckillProductKeyFormat() {
+        return String.format("seckill:product:%d", id());
+    }
+
+    @Benchmark
+    public String[] seckillRequestKeys() {
+        long id = id();
+        return new String[] {
+                "seckill:product:" + id,
+                "seckill:stock:{" + id + "}",
+                "seckill:buyers:{" + id + "}"
+        };
+    }
+
+    private static long id() {
+        return ThreadLocalRandom.current().nextLong(1, 10_000);
+    }
+}
\ No newline at end of file
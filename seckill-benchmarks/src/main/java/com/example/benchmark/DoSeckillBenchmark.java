@@ -0,0 +1,116 @@
+package com.example.benchmark;
+
+import com.example.common.SeckillStatus;
+import com.example.entity.SeckillOrder;
+import com.example.entity.SeckillProduct;
+import com.example.service.OrderNoGenerator;
+import com.example.service.SeckillRateLimiter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * doSeckill 中JVM内部的部分：准入限流 → 本地缓存读取活动 → 预扣库存（进程内替身）→ 生成订单号并构造订单
+ * Redis和数据库的网络往返不在测量范围内，由 seckill-loadgen 压测覆盖
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DoSeckillBenchmark {
+
+    private static final long SECKILL_ID = 1L;
+
+    private SeckillRateLimiter rateLimiter;
+
+    private Cache<String, Object> localCache;
+
+    private OrderNoGenerator orderNoGenerator;
+
+    private InMemoryStock stock;
+
+    private final AtomicLong userIds = new AtomicLong();
+
+    @Setup
+    public void setup() {
+        rateLimiter = new SeckillRateLimiter();
+        Fixtures.setField(rateLimiter, "enabled", true);
+        Fixtures.setField(rateLimiter, "stockMultiplier", 3.0);
+        // 放行上限足够大，测量的是令牌桶本身的开销而不是拒绝路径
+        Fixtures.setField(rateLimiter, "minPermitsPerSecond", 1_000_000_000L);
+
+        localCache = Caffeine.newBuilder().maximumSize(10_000).build();
+        SeckillProduct seckillProduct = Fixtures.seckillProduct(SECKILL_ID);
+        seckillProduct.setStartTime(LocalDateTime.now().minusHours(1));
+        seckillProduct.setEndTime(LocalDateTime.now().plusDays(1));
+        localCache.put("seckill:product:" + SECKILL_ID, seckillProduct);
+
+        orderNoGenerator = new OrderNoGenerator(1);
+    }
+
+    /**
+     * 每轮迭代重置库存和购买记录，保证大部分请求走成功路径
+     */
+    @Setup(Level.Iteration)
+    public void resetStock() {
+        stock = new InMemoryStock(Integer.MAX_VALUE);
+        userIds.set(0);
+    }
+
+    @Benchmark
+    public Object doSeckill() {
+        return seckill(userIds.incrementAndGet());
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Object doSeckillContended() {
+        return seckill(userIds.incrementAndGet());
+    }
+
+    private Object seckill(long userId) {
+        SeckillProduct seckillProduct = (SeckillProduct) localCache.getIfPresent("seckill:product:" + SECKILL_ID);
+        if (!rateLimiter.tryAcquire(SECKILL_ID, seckillProduct.getStockCount())) {
+            return SeckillStatus.BUSY;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        SeckillStatus status = stock.reserve(userId, toEpochMilli(now),
+                toEpochMilli(seckillProduct.getStartTime()), toEpochMilli(seckillProduct.getEndTime()));
+        if (status != SeckillStatus.SUCCESS) {
+            return status;
+        }
+
+        SeckillOrder order = new SeckillOrder();
+        order.setOrderNo(orderNoGenerator.nextOrderNo(userId));
+        order.setUserId(userId);
+        order.setProductId(seckillProduct.getProductId());
+        order.setSeckillId(seckillProduct.getId());
+        order.setSeckillPrice(seckillProduct.getSeckillPrice());
+        order.setStatus(0);
+        order.setCreateTime(now);
+        return order;
+    }
+
+    private static long toEpochMilli(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
\ No newline at end of file
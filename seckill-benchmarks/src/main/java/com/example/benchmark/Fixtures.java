@@ -0,0 +1,78 @@
+package com.example.benchmark;
+
+import com.example.entity.Product;
+import com.example.entity.SeckillOrder;
+import com.example.entity.SeckillProduct;
+
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 基准测试使用的样例数据
+ * 字段取值与线上数据的长度和分布相近，保证序列化结果的大小有参考意义
+ */
+final class Fixtures {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 1, 1, 10, 0, 0);
+
+    private Fixtures() {
+    }
+
+    static Product product(long id) {
+        Product product = new Product("iPhone 15 Pro " + id, "A17 Pro芯片，钛金属设计，256GB",
+                new BigDecimal("7999.00"), 1000);
+        product.setId(id);
+        product.setStatus(1);
+        product.setCreateTime(NOW);
+        return product;
+    }
+
+    static SeckillProduct seckillProduct(long id) {
+        SeckillProduct seckillProduct = new SeckillProduct(id, new BigDecimal("5999.00"), 100,
+                NOW.plusHours(1), NOW.plusHours(3));
+        seckillProduct.setId(id);
+        seckillProduct.setStockShards(1);
+        seckillProduct.setCreateTime(NOW);
+        return seckillProduct;
+    }
+
+    static List<SeckillProduct> seckillProducts(int size) {
+        List<SeckillProduct> list = new ArrayList<>(size);
+        for (int i = 1; i <= size; i++) {
+            list.add(seckillProduct(i));
+        }
+        return list;
+    }
+
+    static SeckillOrder order(long userId) {
+        SeckillOrder order = new SeckillOrder("123456789012345678" + (userId % 10), userId, 1L, new BigDecimal("5999.00"));
+        order.setId(100000L + userId);
+        order.setSeckillId(1L);
+        order.setCreateTime(NOW);
+        return order;
+    }
+
+    static List<SeckillOrder> orders(int size) {
+        List<SeckillOrder> list = new ArrayList<>(size);
+        for (int i = 1; i <= size; i++) {
+            list.add(order(i));
+        }
+        return list;
+    }
+
+    /**
+     * 为@Value注入的私有字段赋值，基准测试不启动Spring容器
+     */
+    static void setField(Object target, String name, Object value) {
+        try {
+            Field field = target.getClass().getDeclaredField(name);
+            field.setAccessible(true);
+            field.set(target, value);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
\ No newline at end of file
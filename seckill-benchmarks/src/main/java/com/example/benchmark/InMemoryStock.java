@@ -0,0 +1,39 @@
+package com.example.benchmark;
+
+import com.example.common.SeckillStatus;
+
+import java.util.BitSet;
+
+/**
+ * 秒杀Lua脚本的进程内替身
+ * 按 lua/seckill.lua 的判断顺序检查活动时间、重复购买和库存，
+ * 用于在不连接Redis的情况下测量秒杀路径中JVM内部的开销
+ */
+final class InMemoryStock {
+
+    private final BitSet buyers = new BitSet();
+
+    private int stock;
+
+    InMemoryStock(int stock) {
+        this.stock = stock;
+    }
+
+    synchronized SeckillStatus reserve(long userId, long now, long startTime, long endTime) {
+        if (now < startTime) {
+            return SeckillStatus.NOT_STARTED;
+        }
+        if (now > endTime) {
+            return SeckillStatus.ENDED;
+        }
+        if (buyers.get((int) userId)) {
+            return SeckillStatus.REPEATED;
+        }
+        if (stock <= 0) {
+            return SeckillStatus.SOLD_OUT;
+        }
+        stock--;
+        buyers.set((int) userId);
+        return SeckillStatus.SUCCESS;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,59 @@
+package com.example.benchmark;
+
+import com.example.service.OrderNoGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 订单号生成：Snowflake变体与原先的随机UUID对比，单线程和多线程争用两种情况
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OrderNoBenchmark {
+
+    private OrderNoGenerator generator;
+
+    @Setup
+    public void setup() {
+        generator = new OrderNoGenerator(1);
+    }
+
+    @Benchmark
+    public String snowflake() {
+        return generator.nextOrderNo(ThreadLocalRandom.current().nextLong(1, 1_000_000));
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String snowflakeContended() {
+        return generator.nextOrderNo(ThreadLocalRandom.current().nextLong(1, 1_000_000));
+    }
+
+    @Benchmark
+    public String uuid() {
+        return UUID.randomUUID().toString().replace("-", "");
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String uuidContended() {
+        return UUID.randomUUID().toString().replace("-", "");
+    }
+}
\ No newline at end of file
@@ -0,0 +1,103 @@
+package com.example.benchmark;
+
+import com.example.config.RedisConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Redis缓存值序列化：JSON（带类型信息）与二进制格式的耗时对比
+ * 每种值编码后的字节数在初始化时输出到日志，并记入基线报告
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RedisSerializerBenchmark {
+
+    @Param({"json", "binary"})
+    private String serializer;
+
+    private RedisSerializer<Object> redisSerializer;
+
+    private Object product;
+    private Object seckillProduct;
+    private Object seckillProductList;
+    private Object orderList;
+
+    private byte[] productBytes;
+    private byte[] seckillProductBytes;
+    private byte[] seckillProductListBytes;
+    private byte[] orderListBytes;
+
+    @Setup
+    public void setup() {
+        redisSerializer = RedisConfig.valueSerializer(serializer, 1024);
+        product = Fixtures.product(1);
+        seckillProduct = Fixtures.seckillProduct(1);
+        seckillProductList = Fixtures.seckillProducts(50);
+        orderList = Fixtures.orders(20);
+
+        productBytes = redisSerializer.serialize(product);
+        seckillProductBytes = redisSerializer.serialize(seckillProduct);
+        seckillProductListBytes = redisSerializer.serialize(seckillProductList);
+        orderListBytes = redisSerializer.serialize(orderList);
+
+        System.out.printf("%n[bytes] serializer=%s product=%d seckillProduct=%d seckillProducts(50)=%d orders(20)=%d%n",
+                serializer, productBytes.length, seckillProductBytes.length,
+                seckillProductListBytes.length, orderListBytes.length);
+    }
+
+    @Benchmark
+    public byte[] serializeProduct() {
+        return redisSerializer.serialize(product);
+    }
+
+    @Benchmark
+    public Object deserializeProduct() {
+        return redisSerializer.deserialize(productBytes);
+    }
+
+    @Benchmark
+    public byte[] serializeSeckillProduct() {
+        return redisSerializer.serialize(seckillProduct);
+    }
+
+    @Benchmark
+    public Object deserializeSeckillProduct() {
+        return redisSerializer.deserialize(seckillProductBytes);
+    }
+
+    @Benchmark
+    public byte[] serializeSeckillProductList() {
+        return redisSerializer.serialize(seckillProductList);
+    }
+
+    @Benchmark
+    public Object deserializeSeckillProductList() {
+        return redisSerializer.deserialize(seckillProductListBytes);
+    }
+
+    @Benchmark
+    public byte[] serializeOrderList() {
+        return redisSerializer.serialize(orderList);
+    }
+
+    @Benchmark
+    public Object deserializeOrderList() {
+        return redisSerializer.deserialize(orderListBytes);
+    }
+}
\ No newline at end of file
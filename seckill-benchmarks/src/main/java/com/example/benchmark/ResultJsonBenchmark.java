@@ -0,0 +1,71 @@
+package com.example.benchmark;
+
+import com.example.common.Result;
+import com.example.config.JsonConfig;
+import com.example.entity.SeckillProduct;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 接口响应 Result<T> 的JSON序列化，使用与线上相同的 JsonConfig ObjectMapper
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ResultJsonBenchmark {
+
+    /**
+     * 秒杀商品列表长度
+     */
+    @Param({"10", "100"})
+    private int size;
+
+    private ObjectMapper objectMapper;
+
+    private Result<List<SeckillProduct>> listResult;
+
+    private Result<Map<String, Object>> seckillResult;
+
+    @Setup
+    public void setup() {
+        objectMapper = new JsonConfig().objectMapper();
+        listResult = Result.success("获取秒杀商品列表成功", Fixtures.seckillProducts(size));
+
+        Map<String, Object> data = new HashMap<>();
+        data.put("userId", 1L);
+        data.put("seckillId", 1L);
+        data.put("status", 1);
+        data.put("message", "秒杀成功");
+        data.put("orderNo", "123456789012345678");
+        seckillResult = Result.success("秒杀成功", data);
+    }
+
+    @Benchmark
+    public byte[] seckillList() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(listResult);
+    }
+
+    @Benchmark
+    public byte[] seckillResponse() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(seckillResult);
+    }
+}
\ No newline at end of file
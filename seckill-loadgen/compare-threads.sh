@@ -0,0 +1,18 @@
+#!/bin/sh
+# 以相同参数分别在平台线程和虚拟线程（vthreads profile）模式下压测，对比响应时间分位数和峰值未完成请求数
+# 用法: ./compare-threads.sh [--参数=值...]
+# 例如: ./compare-threads.sh --users=50000 --stock=1000 --rate=5000 --duration=30s
+# 每种模式的完整输出保存在 target/threads-{platform,virtual}.txt
+set -e
+
+cd "$(dirname "$0")"
+mkdir -p target
+for threads in platform virtual; do
+    ./run-loadgen.sh "$@" --threads=$threads | tee target/threads-$threads.txt
+done
+
+echo "========== 平台线程 vs 虚拟线程 =========="
+for threads in platform virtual; do
+    echo "[$threads]"
+    grep -e "吞吐量" -e "峰值未完成请求数" -e "p99=" target/threads-$threads.txt
+done
@@ -0,0 +1,9 @@
+#!/bin/sh
+# 在本机启动应用（H2 + 嵌入式Redis）并按固定到达率压测秒杀接口，结束后校验是否超卖
+# 用法: ./run-loadgen.sh [--参数=值...]
+# 例如: ./run-loadgen.sh --users=50000 --activities=2 --stock=1000 --rate=5000 --duration=20s --async=true
+# 校验失败时退出码为1
+set -e
+
+cd "$(dirname "$0")"
+mvn -q compile exec:java -Dexec.args="$*"
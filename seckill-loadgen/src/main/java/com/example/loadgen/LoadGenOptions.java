@@ -0,0 +1,160 @@
+package com.example.loadgen;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 压测参数，命令行格式为 --名称=值
+ * 以 --app. 开头的参数去掉前缀后作为应用配置传入，例如 --app.seckill.stock.shards=4
+ */
+final class LoadGenOptions {
+
+    /**
+     * 预置用户数，每个请求从中随机选取用户，同一用户会重复出现
+     */
+    int users = 10_000;
+
+    /**
+     * 秒杀活动数，请求在活动之间均匀分布
+     */
+    int activities = 1;
+
+    /**
+     * 每个活动的初始库存
+     */
+    int stock = 100;
+
+    /**
+     * 每个活动的Redis库存分片数（tb_seckill_product.stock_shards）
+     */
+    int shards = 1;
+
+    /**
+     * 到达率（请求/秒），按计划时刻发送，不等待前一个请求返回
+     */
+    double rate = 2_000;
+
+    /**
+     * 到达过程：poisson（指数分布间隔）或 uniform（固定间隔）
+     */
+    boolean poisson = true;
+
+    /**
+     * 发送持续时间
+     */
+    Duration duration = Duration.ofSeconds(10);
+
+    /**
+     * 应用启动并预热后，距离活动开始的时间
+     */
+    Duration startDelay = Duration.ofSeconds(2);
+
+    /**
+     * 秒杀接口：classic（/api/seckill/do）或 reactive（/api/seckill/reactive/do）
+     */
+    boolean reactive = false;
+
+    /**
+     * 应用的请求处理线程：platform（Tomcat线程池）或 virtual（启用 vthreads profile）
+     */
+    boolean virtualThreads = false;
+
+    /**
+     * 是否异步下单
+     */
+    boolean async = false;
+
+    /**
+     * 是否启用应用的准入限流
+     */
+    boolean rateLimit = true;
+
+    /**
+     * 客户端最大未完成请求数，超出时该次到达计为丢弃，防止被测系统失去响应时压测进程耗尽内存
+     */
+    int maxInFlight = 20_000;
+
+    /**
+     * 单个请求的超时时间
+     */
+    Duration timeout = Duration.ofSeconds(10);
+
+    /**
+     * 发送结束后等待订单落库、库存同步的最长时间
+     */
+    Duration settle = Duration.ofSeconds(30);
+
+    /**
+     * 透传给应用的配置
+     */
+    final Map<String, Object> appProperties = new LinkedHashMap<>();
+
+    static LoadGenOptions parse(String[] args) {
+        LoadGenOptions options = new LoadGenOptions();
+        for (String arg : args) {
+            if (arg.isBlank()) {
+                continue;
+            }
+            int eq = arg.indexOf('=');
+            if (!arg.startsWith("--") || eq < 0) {
+                throw new IllegalArgumentException("参数格式应为 --名称=值: " + arg);
+            }
+            String name = arg.substring(2, eq);
+            String value = arg.substring(eq + 1);
+            if (name.startsWith("app.")) {
+                options.appProperties.put(name.substring(4), value);
+                continue;
+            }
+            switch (name) {
+                case "users" -> options.users = Integer.parseInt(value);
+                case "activities" -> options.activities = Integer.parseInt(value);
+                case "stock" -> options.stock = Integer.parseInt(value);
+                case "shards" -> options.shards = Integer.parseInt(value);
+                case "rate" -> options.rate = Double.parseDouble(value);
+                case "arrival" -> options.poisson = switch (value) {
+                    case "poisson" -> true;
+                    case "uniform" -> false;
+                    default -> throw new IllegalArgumentException("arrival 只支持 poisson 或 uniform: " + value);
+                };
+                case "duration" -> options.duration = DurationStyle.detectAndParse(value);
+                case "start-delay" -> options.startDelay = DurationStyle.detectAndParse(value);
+                case "endpoint" -> options.reactive = switch (value) {
+                    case "classic" -> false;
+                    case "reactive" -> true;
+                    default -> throw new IllegalArgumentException("endpoint 只支持 classic 或 reactive: " + value);
+                };
+                case "threads" -> options.virtualThreads = switch (value) {
+                    case "platform" -> false;
+                    case "virtual" -> true;
+                    default -> throw new IllegalArgumentException("threads 只支持 platform 或 virtual: " + value);
+                };
+                case "async" -> options.async = Boolean.parseBoolean(value);
+                case "rate-limit" -> options.rateLimit = Boolean.parseBoolean(value);
+                case "max-in-flight" -> options.maxInFlight = Integer.parseInt(value);
+                case "timeout" -> options.timeout = DurationStyle.detectAndParse(value);
+                case "settle" -> options.settle = DurationStyle.detectAndParse(value);
+                default -> throw new IllegalArgumentException("未知参数: " + name);
+            }
+        }
+        if (options.users <= 0 || options.activities <= 0 || options.stock <= 0 || options.shards <= 0
+                || options.rate <= 0 || options.maxInFlight <= 0) {
+            throw new IllegalArgumentException("users、activities、stock、shards、rate、max-in-flight 必须为正数");
+        }
+        return options;
+    }
+
+    String endpoint() {
+        return reactive ? "/api/seckill/reactive/do" : "/api/seckill/do";
+    }
+
+    @Override
+    public String toString() {
+        return "users=" + users + ", activities=" + activities + ", stock=" + stock + ", shards=" + shards
+                + ", rate=" + rate + "/s (" + (poisson ? "poisson" : "uniform") + "), duration=" + duration
+                + ", endpoint=" + endpoint() + ", threads=" + (virtualThreads ? "virtual" : "platform") + ", async=" + async + ", rateLimit=" + rateLimit
+                + (appProperties.isEmpty() ? "" : ", app=" + appProperties);
+    }
+}
\ No newline at end of file
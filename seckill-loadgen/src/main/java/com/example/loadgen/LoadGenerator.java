@@ -0,0 +1,128 @@
+package com.example.loadgen;
+
+import com.example.service.SessionTokenService;
+import org.HdrHistogram.Histogram;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 秒杀本地压测入口
+ * 1. 启动嵌入式Redis和H2，写入用户、商品和秒杀活动；
+ * 2. 同进程启动应用，设置活动开始时间并预热库存；
+ * 3. 活动开始时刻起按到达率发送秒杀请求，记录延迟分布和吞吐量；
+ * 4. 等待订单和库存落库后校验是否超卖、库存为负、重复购买，校验失败时退出码为1
+ */
+public final class LoadGenerator {
+
+    private LoadGenerator() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadGenOptions options = LoadGenOptions.parse(args);
+        System.out.println("压测参数: " + options);
+
+        boolean passed;
+        try (LocalEnvironment environment = LocalEnvironment.start()) {
+            environment.seedUsers(options.users);
+            List<Long> seckillIds = environment.seedActivities(options.activities, options.stock, options.shards);
+            int port = environment.startApplication(options);
+            String baseUrl = "http://localhost:" + port;
+
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .executor(Executors.newVirtualThreadPerTaskExecutor())
+                    .connectTimeout(options.timeout)
+                    .build();
+
+            // 活动在预热完成后 start-delay 开始
+            LocalDateTime startTime = LocalDateTime.now().plus(options.startDelay);
+            environment.schedule(seckillIds, startTime, startTime.plusHours(1));
+            for (Long seckillId : seckillIds) {
+                preload(client, baseUrl, seckillId);
+            }
+            long startNanos = System.nanoTime()
+                    + Duration.between(LocalDateTime.now(), startTime).toNanos();
+
+            OpenModelDriver driver = new OpenModelDriver(client, URI.create(baseUrl + options.endpoint()), options, seckillIds,
+                    environment.context().getBean(SessionTokenService.class));
+            driver.run(startNanos);
+            report(driver);
+
+            OversellVerifier verifier = new OversellVerifier(
+                    environment.context().getBean(JdbcTemplate.class),
+                    environment.context().getBean(StringRedisTemplate.class),
+                    options);
+            verifier.awaitSettled();
+            for (Long seckillId : seckillIds) {
+                verifier.verify(seckillId, driver.activity(seckillId));
+            }
+
+            passed = verifier.failures().isEmpty();
+            if (passed) {
+                System.out.println("校验通过：无超卖、无负库存、无重复购买");
+            } else {
+                System.out.println("校验失败:");
+                verifier.failures().forEach(failure -> System.out.println("  " + failure));
+            }
+        }
+        System.exit(passed ? 0 : 1);
+    }
+
+    private static void preload(HttpClient client, String baseUrl, Long seckillId) throws Exception {
+        // 活动是刚写入的，没有订单；开始延迟很短时预热可能晚于活动开始，需要force
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/seckill/preload/" + seckillId + "?force=true"))
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200 || !response.body().contains("库存预热成功")) {
+            throw new IllegalStateException("预热活动 " + seckillId + " 失败: " + response.body());
+        }
+    }
+
+    private static void report(OpenModelDriver driver) {
+        Histogram responseTime = driver.responseTime();
+        long completed = responseTime.getTotalCount();
+        double seconds = driver.elapsedNanos() / (double) TimeUnit.SECONDS.toNanos(1);
+
+        System.out.println("========== 压测结果 ==========");
+        System.out.printf("发送 %d, 完成 %d, 客户端丢弃 %d, 耗时 %.2fs, 吞吐量 %.0f/s%n",
+                driver.sent(), completed, driver.dropped(), seconds, completed / seconds);
+        System.out.printf("峰值未完成请求数 %d%n", driver.peakInFlight());
+        System.out.println("响应时间(含排队，按计划发送时刻计):");
+        printPercentiles(responseTime);
+        System.out.println("服务时间(按实际发送时刻计):");
+        printPercentiles(driver.serviceTime());
+
+        System.out.println("结果分布:");
+        Map<String, Long> outcomes = new TreeMap<>();
+        driver.outcomes().forEach((name, count) -> outcomes.put(name, count.sum()));
+        outcomes.forEach((name, count) -> System.out.printf("  %-16s %d%n", name, count));
+    }
+
+    private static void printPercentiles(Histogram histogram) {
+        System.out.printf("  p50=%.2fms p90=%.2fms p99=%.2fms p99.9=%.2fms p99.99=%.2fms max=%.2fms mean=%.2fms%n",
+                millis(histogram.getValueAtPercentile(50)),
+                millis(histogram.getValueAtPercentile(90)),
+                millis(histogram.getValueAtPercentile(99)),
+                millis(histogram.getValueAtPercentile(99.9)),
+                millis(histogram.getValueAtPercentile(99.99)),
+                millis(histogram.getMaxValue()),
+                histogram.getMean() / 1000);
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+}
\ No newline at end of file
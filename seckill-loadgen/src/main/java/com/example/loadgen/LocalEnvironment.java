@@ -0,0 +1,226 @@
+package com.example.loadgen;
+
+import com.example.App;
+import org.h2.tools.RunScript;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 压测用的本地运行环境：嵌入式Redis + H2内存库（MySQL兼容模式）+ 同进程启动的应用
+ * 数据在应用启动前写入，应用启动时构建的ID过滤器能看到全部用户和活动
+ */
+final class LocalEnvironment implements AutoCloseable {
+
+    private static final String JDBC_URL =
+            "jdbc:h2:mem:seckill;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+
+    private static final int BATCH_SIZE = 1000;
+
+    private final RedisServer redisServer;
+
+    private final int redisPort;
+
+    /**
+     * 保持一个连接，应用关闭前内存库不会被释放
+     */
+    private final Connection connection;
+
+    private ConfigurableApplicationContext context;
+
+    private LocalEnvironment(RedisServer redisServer, int redisPort, Connection connection) {
+        this.redisServer = redisServer;
+        this.redisPort = redisPort;
+        this.connection = connection;
+    }
+
+    static LocalEnvironment start() throws IOException, SQLException {
+        int redisPort = freePort();
+        RedisServer redisServer = new RedisServer(redisPort);
+        redisServer.start();
+        try {
+            Connection connection = DriverManager.getConnection(JDBC_URL, "sa", "");
+            try (Reader schema = new InputStreamReader(
+                    LocalEnvironment.class.getResourceAsStream("/loadgen-schema.sql"), StandardCharsets.UTF_8)) {
+                RunScript.execute(connection, schema);
+            }
+            return new LocalEnvironment(redisServer, redisPort, connection);
+        } catch (IOException | SQLException | RuntimeException e) {
+            redisServer.stop();
+            throw e;
+        }
+    }
+
+    /**
+     * 写入用户，空库自增ID依次为 1..users
+     */
+    void seedUsers(int users) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "INSERT INTO tb_user (username, password) VALUES (?, ?)")) {
+            for (int i = 1; i <= users; i++) {
+                statement.setString(1, "loadgen_" + i);
+                statement.setString(2, "loadgen");
+                statement.addBatch();
+                if (i % BATCH_SIZE == 0) {
+                    statement.executeBatch();
+                }
+            }
+            statement.executeBatch();
+        }
+    }
+
+    /**
+     * 写入商品及对应的秒杀活动，活动开始时间先设为一天后，应用就绪后再通过 {@link #schedule} 调整
+     */
+    List<Long> seedActivities(int activities, int stock, int shards) throws SQLException {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> seckillIds = new ArrayList<>(activities);
+        try (PreparedStatement product = connection.prepareStatement(
+                "INSERT INTO tb_product (product_name, product_desc, price, stock_count, status) VALUES (?, ?, ?, ?, 1)",
+                Statement.RETURN_GENERATED_KEYS);
+             PreparedStatement seckill = connection.prepareStatement(
+                "INSERT INTO tb_seckill_product (product_id, seckill_price, stock_count, start_time, end_time, status, stock_shards) "
+                        + "VALUES (?, ?, ?, ?, ?, 1, ?)",
+                Statement.RETURN_GENERATED_KEYS)) {
+            for (int i = 1; i <= activities; i++) {
+                product.setString(1, "压测商品" + i);
+                product.setString(2, "seckill-loadgen");
+                product.setBigDecimal(3, new BigDecimal("100.00"));
+                product.setInt(4, stock);
+                product.executeUpdate();
+                long productId = generatedKey(product);
+
+                seckill.setLong(1, productId);
+                seckill.setBigDecimal(2, new BigDecimal("1.00"));
+                seckill.setInt(3, stock);
+                seckill.setTimestamp(4, Timestamp.valueOf(now.plusDays(1)));
+                seckill.setTimestamp(5, Timestamp.valueOf(now.plusDays(2)));
+                seckill.setInt(6, shards);
+                seckill.executeUpdate();
+                seckillIds.add(generatedKey(seckill));
+            }
+        }
+        return seckillIds;
+    }
+
+    /**
+     * 设置活动的开始和结束时间
+     */
+    void schedule(List<Long> seckillIds, LocalDateTime startTime, LocalDateTime endTime) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "UPDATE tb_seckill_product SET start_time = ?, end_time = ? WHERE id = ?")) {
+            for (Long seckillId : seckillIds) {
+                statement.setTimestamp(1, Timestamp.valueOf(startTime));
+                statement.setTimestamp(2, Timestamp.valueOf(endTime));
+                statement.setLong(3, seckillId);
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+    }
+
+    /**
+     * 启动应用，返回HTTP端口
+     */
+    int startApplication(LoadGenOptions options) {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("server.port", 0);
+        properties.put("spring.datasource.url", JDBC_URL);
+        properties.put("spring.datasource.driver-class-name", "org.h2.Driver");
+        properties.put("spring.datasource.username", "sa");
+        properties.put("spring.datasource.password", "");
+        properties.put("spring.jpa.properties.hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+        properties.put("spring.jpa.show-sql", false);
+        properties.put("spring.data.redis.host", "localhost");
+        properties.put("spring.data.redis.port", redisPort);
+        properties.put("spring.devtools.restart.enabled", false);
+        properties.put("spring.devtools.livereload.enabled", false);
+        properties.put("logging.level.com.example", "info");
+        properties.put("logging.level.org.springframework.data.redis", "info");
+        // 库存由压测程序在开始前显式预热
+        properties.put("seckill.warmup.enabled", false);
+        properties.put("seckill.order.async", options.async);
+        properties.put("seckill.rate-limit.enabled", options.rateLimit);
+        properties.put("seckill.session.secret", randomSecret());
+        if (options.virtualThreads) {
+            properties.put("spring.profiles.active", "vthreads");
+        }
+        properties.putAll(options.appProperties);
+
+        // 以命令行参数传入，优先级高于应用自带的application.yml
+        String[] args = properties.entrySet().stream()
+                .map(entry -> "--" + entry.getKey() + "=" + entry.getValue())
+                .toArray(String[]::new);
+        context = new SpringApplicationBuilder(App.class).run(args);
+        return ((WebServerApplicationContext) context).getWebServer().getPort();
+    }
+
+    ConfigurableApplicationContext context() {
+        return context;
+    }
+
+    @Override
+    public void close() {
+        try {
+            if (context != null) {
+                context.close();
+            }
+        } finally {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SHUTDOWN");
+            } catch (SQLException ignored) {
+                // 内存库随进程退出释放
+            }
+            try {
+                redisServer.stop();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private static long generatedKey(PreparedStatement statement) throws SQLException {
+        try (ResultSet keys = statement.getGeneratedKeys()) {
+            keys.next();
+            return keys.getLong(1);
+        }
+    }
+
+    /**
+     * 压测进程内签发令牌和应用校验令牌使用同一个上下文，每次运行随机生成密钥即可
+     */
+    private static String randomSecret() {
+        byte[] secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+        return Base64.getEncoder().encodeToString(secret);
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,247 @@
+package com.example.loadgen;
+
+import com.example.common.SeckillStatus;
+import com.example.service.SessionTokenService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 开放模型压测驱动
+ * 请求按到达率预先排定的时刻发送，与响应是否返回无关，被测系统变慢时请求会堆积而不是减少。
+ * 响应时间从计划发送时刻起算，发送线程落后于计划时也会计入，避免协调遗漏(coordinated omission)。
+ * 每个请求携带用应用密钥签发的会话令牌，与登录接口返回的令牌相同，不需要逐个用户登录
+ */
+final class OpenModelDriver {
+
+    private final HttpClient client;
+
+    private final URI target;
+
+    private final LoadGenOptions options;
+
+    private final List<Long> seckillIds;
+
+    private final SessionTokenService tokenService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * 响应时间（计划发送时刻到收到响应），微秒
+     */
+    private final Histogram responseTime = new ConcurrentHistogram(3);
+
+    /**
+     * 服务时间（实际发送时刻到收到响应），微秒
+     */
+    private final Histogram serviceTime = new ConcurrentHistogram(3);
+
+    private final Map<String, LongAdder> outcomes = new ConcurrentHashMap<>();
+
+    private final Map<Long, ActivityStats> activities = new ConcurrentHashMap<>();
+
+    private final LongAdder dropped = new LongAdder();
+
+    private long sent;
+
+    /**
+     * 同时未完成请求数的峰值
+     */
+    private int peakInFlight;
+
+    private long elapsedNanos;
+
+    OpenModelDriver(HttpClient client, URI target, LoadGenOptions options, List<Long> seckillIds,
+                    SessionTokenService tokenService) {
+        this.client = client;
+        this.target = target;
+        this.options = options;
+        this.seckillIds = seckillIds;
+        this.tokenService = tokenService;
+        for (Long seckillId : seckillIds) {
+            activities.put(seckillId, new ActivityStats());
+        }
+    }
+
+    /**
+     * 从startNanos开始按到达率发送，发送结束后等待未完成的请求返回
+     */
+    void run(long startNanos) throws InterruptedException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        double intervalNanos = TimeUnit.SECONDS.toNanos(1) / options.rate;
+        long endNanos = startNanos + options.duration.toNanos();
+        Semaphore inFlight = new Semaphore(options.maxInFlight);
+
+        double next = startNanos;
+        while (next < endNanos) {
+            long intended = (long) next;
+            next += options.poisson ? -Math.log(1 - random.nextDouble()) * intervalNanos : intervalNanos;
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            if (!inFlight.tryAcquire()) {
+                dropped.increment();
+                continue;
+            }
+            sent++;
+            peakInFlight = Math.max(peakInFlight, options.maxInFlight - inFlight.availablePermits());
+            long userId = 1 + random.nextLong(options.users);
+            Long seckillId = seckillIds.get(random.nextInt(seckillIds.size()));
+            send(userId, seckillId, intended, inFlight);
+        }
+
+        // 等待未完成的请求
+        if (!inFlight.tryAcquire(options.maxInFlight, options.timeout.toMillis() + 5000, TimeUnit.MILLISECONDS)) {
+            outcome("UNFINISHED").add(options.maxInFlight - inFlight.availablePermits());
+        }
+        elapsedNanos = System.nanoTime() - startNanos;
+    }
+
+    private void send(long userId, Long seckillId, long intended, Semaphore inFlight) {
+        HttpRequest request = HttpRequest.newBuilder(target)
+                .timeout(options.timeout)
+                .header("Content-Type", "application/json")
+                .header("Authorization", "Bearer " + tokenService.issue(userId))
+                .POST(HttpRequest.BodyPublishers.ofString("{\"seckillId\":" + seckillId + "}"))
+                .build();
+        long sentAt = System.nanoTime();
+        client.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                .whenComplete((response, error) -> {
+                    long now = System.nanoTime();
+                    try {
+                        responseTime.recordValue(TimeUnit.NANOSECONDS.toMicros(now - intended));
+                        serviceTime.recordValue(TimeUnit.NANOSECONDS.toMicros(now - sentAt));
+                        String outcome = error != null ? classify(error) : classify(response);
+                        outcome(outcome).increment();
+                        activities.get(seckillId).record(userId, outcome);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+    }
+
+    private String classify(Throwable error) {
+        Throwable cause = error.getCause() != null ? error.getCause() : error;
+        return cause instanceof HttpTimeoutException ? "TIMEOUT" : "IO_ERROR";
+    }
+
+    private String classify(HttpResponse<byte[]> response) {
+        if (response.statusCode() != 200) {
+            return "HTTP_" + response.statusCode();
+        }
+        try {
+            JsonNode body = objectMapper.readTree(response.body());
+            if (body.path("code").asInt() == 429) {
+                return SeckillStatus.BUSY.name();
+            }
+            JsonNode status = body.path("data").path("status");
+            if (status.isNumber()) {
+                return SeckillStatus.of(status.asLong()).name();
+            }
+            // 活动售罄、用户不存在等在进入秒杀前被拒绝的请求只有message
+            String message = body.path("message").asText();
+            for (SeckillStatus seckillStatus : SeckillStatus.values()) {
+                if (seckillStatus.getMessage().equals(message)) {
+                    return seckillStatus.name();
+                }
+            }
+            return "ERROR";
+        } catch (IOException e) {
+            return "INVALID_RESPONSE";
+        }
+    }
+
+    private LongAdder outcome(String name) {
+        return outcomes.computeIfAbsent(name, key -> new LongAdder());
+    }
+
+    Histogram responseTime() {
+        return responseTime;
+    }
+
+    Histogram serviceTime() {
+        return serviceTime;
+    }
+
+    Map<String, LongAdder> outcomes() {
+        return outcomes;
+    }
+
+    ActivityStats activity(Long seckillId) {
+        return activities.get(seckillId);
+    }
+
+    long sent() {
+        return sent;
+    }
+
+    long dropped() {
+        return dropped.sum();
+    }
+
+    int peakInFlight() {
+        return peakInFlight;
+    }
+
+    long elapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * 单个活动从客户端观察到的结果
+     */
+    static final class ActivityStats {
+
+        /**
+         * 返回秒杀成功或排队中的用户
+         */
+        private final Set<Long> acceptedUsers = ConcurrentHashMap.newKeySet();
+
+        /**
+         * 同一用户收到多次成功响应的次数
+         */
+        private final LongAdder duplicateAccepts = new LongAdder();
+
+        private volatile boolean soldOutObserved;
+
+        private void record(long userId, String outcome) {
+            if (SeckillStatus.SUCCESS.name().equals(outcome) || SeckillStatus.QUEUED.name().equals(outcome)) {
+                if (!acceptedUsers.add(userId)) {
+                    duplicateAccepts.increment();
+                }
+            } else if (SeckillStatus.SOLD_OUT.name().equals(outcome)) {
+                soldOutObserved = true;
+            }
+        }
+
+        int accepted() {
+            return acceptedUsers.size();
+        }
+
+        long duplicateAccepts() {
+            return duplicateAccepts.sum();
+        }
+
+        boolean soldOutObserved() {
+            return soldOutObserved;
+        }
+    }
+}
\ No newline at end of file
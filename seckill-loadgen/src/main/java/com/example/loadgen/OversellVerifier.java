@@ -0,0 +1,118 @@
+package com.example.loadgen;
+
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 压测结束后的一致性校验：
+ * 1. 订单数不超过初始库存，售罄时等于初始库存，同步下单时等于客户端收到的成功数；
+ * 2. 数据库和Redis中的库存不为负，且等于 初始库存 - 订单数；
+ * 3. 同一用户在同一活动中最多一笔订单
+ */
+final class OversellVerifier {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final StringRedisTemplate redisTemplate;
+
+    private final LoadGenOptions options;
+
+    private final List<String> failures = new ArrayList<>();
+
+    OversellVerifier(JdbcTemplate jdbcTemplate, StringRedisTemplate redisTemplate, LoadGenOptions options) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.redisTemplate = redisTemplate;
+        this.options = options;
+    }
+
+    /**
+     * 等待异步下单队列落库、库存批量扣减同步到数据库
+     */
+    void awaitSettled() throws InterruptedException {
+        long deadline = System.nanoTime() + options.settle.toNanos();
+        long lastOrders = -1;
+        while (System.nanoTime() < deadline) {
+            long orders = count("SELECT COUNT(*) FROM tb_seckill_order");
+            long unflushed = count("SELECT COUNT(*) FROM tb_seckill_order WHERE stock_flushed = 0");
+            if (orders == lastOrders && unflushed == 0) {
+                return;
+            }
+            lastOrders = orders;
+            Thread.sleep(1000);
+        }
+        failures.add("等待订单落库和库存同步超时(" + options.settle + ")");
+    }
+
+    void verify(Long seckillId, OpenModelDriver.ActivityStats stats) {
+        Map<String, Object> row = jdbcTemplate.queryForMap(
+                "SELECT sp.stock_count AS seckill_stock, p.stock_count AS product_stock, sp.stock_shards AS shards "
+                        + "FROM tb_seckill_product sp JOIN tb_product p ON p.id = sp.product_id WHERE sp.id = ?",
+                seckillId);
+        long orders = count("SELECT COUNT(*) FROM tb_seckill_order WHERE seckill_id = ?", seckillId);
+        long duplicates = count("SELECT COUNT(*) FROM (SELECT user_id FROM tb_seckill_order WHERE seckill_id = ? "
+                + "GROUP BY user_id HAVING COUNT(*) > 1) d", seckillId);
+        long seckillStock = ((Number) row.get("seckill_stock")).longValue();
+        long productStock = ((Number) row.get("product_stock")).longValue();
+        long redisStock = redisStock(seckillId, ((Number) row.get("shards")).intValue());
+        long expectedRemaining = options.stock - orders;
+
+        String prefix = "活动 " + seckillId + ": ";
+        check(orders <= options.stock, prefix + "超卖，订单数 " + orders + " > 库存 " + options.stock);
+        check(!stats.soldOutObserved() || orders == options.stock,
+                prefix + "已返回售罄，但订单数 " + orders + " != 库存 " + options.stock);
+        if (options.async) {
+            // 排队成功的订单可能落库失败并回补库存
+            check(orders <= stats.accepted(), prefix + "订单数 " + orders + " > 排队成功数 " + stats.accepted());
+        } else {
+            check(orders == stats.accepted(), prefix + "订单数 " + orders + " != 客户端成功数 " + stats.accepted());
+        }
+        check(duplicates == 0, prefix + duplicates + " 个用户重复下单");
+        check(stats.duplicateAccepts() == 0, prefix + "同一用户收到 " + stats.duplicateAccepts() + " 次重复的成功响应");
+        check(seckillStock >= 0 && productStock >= 0 && redisStock >= 0,
+                prefix + "库存为负 秒杀商品=" + seckillStock + " 商品=" + productStock + " Redis=" + redisStock);
+        check(seckillStock == expectedRemaining, prefix + "秒杀商品库存 " + seckillStock + " != " + expectedRemaining);
+        check(productStock == expectedRemaining, prefix + "商品库存 " + productStock + " != " + expectedRemaining);
+        check(redisStock == expectedRemaining, prefix + "Redis库存 " + redisStock + " != " + expectedRemaining);
+
+        System.out.printf("活动 %d: 库存 %d, 订单 %d, 客户端成功 %d, 剩余 DB=%d Redis=%d%s%n",
+                seckillId, options.stock, orders, stats.accepted(), seckillStock, redisStock,
+                stats.soldOutObserved() ? ", 已售罄" : "");
+    }
+
+    /**
+     * 各分片剩余库存之和，任一分片为负时返回该负值
+     */
+    private long redisStock(Long seckillId, int shards) {
+        long total = 0;
+        for (int shard = 0; shard < shards; shard++) {
+            // 与 SeckillStockService 的库存key规则一致
+            String key = shards == 1 ? "seckill:stock:{" + seckillId + "}" : "seckill:stock:{" + seckillId + ":" + shard + "}";
+            String value = redisTemplate.opsForValue().get(key);
+            long stock = value == null ? 0 : Long.parseLong(value);
+            if (stock < 0) {
+                return stock;
+            }
+            total += stock;
+        }
+        return total;
+    }
+
+    private long count(String sql, Object... args) {
+        Long count = jdbcTemplate.queryForObject(sql, Long.class, args);
+        return count == null ? 0 : count;
+    }
+
+    private void check(boolean condition, String failure) {
+        if (!condition) {
+            failures.add(failure);
+        }
+    }
+
+    List<String> failures() {
+        return failures;
+    }
+}
\ No newline at end of file
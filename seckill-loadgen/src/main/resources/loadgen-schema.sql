@@ -0,0 +1,58 @@
+-- 压测用H2表结构，与 seckill-backend/src/main/resources/sql/schema.sql 保持一致
+-- 去掉了H2不支持的表选项和注释
+
+CREATE TABLE IF NOT EXISTS tb_product (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    product_name VARCHAR(100) NOT NULL,
+    product_desc TEXT,
+    price DECIMAL(10,2) NOT NULL,
+    stock_count INT NOT NULL DEFAULT 0,
+    status TINYINT DEFAULT 1,
+    create_time DATETIME DEFAULT CURRENT_TIMESTAMP
+);
+CREATE INDEX IF NOT EXISTS idx_product_status ON tb_product (status);
+
+CREATE TABLE IF NOT EXISTS tb_seckill_product (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    product_id BIGINT NOT NULL,
+    seckill_price DECIMAL(10,2) NOT NULL,
+    stock_count INT NOT NULL,
+    start_time DATETIME NOT NULL,
+    end_time DATETIME NOT NULL,
+    status TINYINT DEFAULT 1,
+    stock_shards INT DEFAULT NULL,
+    create_time DATETIME DEFAULT CURRENT_TIMESTAMP
+);
+CREATE INDEX IF NOT EXISTS idx_seckill_product ON tb_seckill_product (product_id);
+CREATE INDEX IF NOT EXISTS idx_seckill_status ON tb_seckill_product (status);
+
+CREATE TABLE IF NOT EXISTS tb_user (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    username VARCHAR(50) NOT NULL UNIQUE,
+    password VARCHAR(100) NOT NULL,
+    create_time DATETIME DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE TABLE IF NOT EXISTS tb_seckill_order (
+    id BIGINT PRIMARY KEY,
+    order_no VARCHAR(64) NOT NULL UNIQUE,
+    user_id BIGINT NOT NULL,
+    product_id BIGINT NOT NULL,
+    seckill_id BIGINT,
+    seckill_price DECIMAL(10,2) NOT NULL,
+    status TINYINT DEFAULT 0,
+    stock_flushed TINYINT NOT NULL DEFAULT 1,
+    create_time DATETIME DEFAULT CURRENT_TIMESTAMP
+);
+CREATE INDEX IF NOT EXISTS idx_order_user_time ON tb_seckill_order (user_id, create_time);
+CREATE INDEX IF NOT EXISTS idx_order_product ON tb_seckill_order (product_id);
+CREATE INDEX IF NOT EXISTS idx_order_seckill_flushed ON tb_seckill_order (seckill_id, stock_flushed);
+
+CREATE TABLE IF NOT EXISTS tb_id_segment (
+    biz_tag VARCHAR(64) PRIMARY KEY,
+    max_id BIGINT NOT NULL DEFAULT 0,
+    step INT NOT NULL DEFAULT 1000,
+    update_time DATETIME DEFAULT CURRENT_TIMESTAMP
+);
+
+MERGE INTO tb_id_segment (biz_tag, max_id, step) KEY (biz_tag) VALUES ('seckill_order', 0, 1000);